@@ -0,0 +1,106 @@
+package hu.pilar.cjg.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.pilar.cjg.HintGenerator;
+import hu.pilar.cjg.ISubclassFinder;
+import hu.pilar.cjg.ReflectionBasedSubclassFinder;
+import hu.pilar.cjg.XmlHint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reflections.Reflections;
+import org.reflections.scanners.Scanners;
+import org.reflections.util.ConfigurationBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation, subclass scanning and serialization over a
+ * {@link SyntheticSchema}. Run with {@code -prof gc} to see the allocation
+ * rate and the bytes allocated per operation next to the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class HintGeneratorBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int classes;
+
+    @Param({"4"})
+    public int fanOut;
+
+    /**
+     * The number of levels, 0 for a balanced tree of the fan-out
+     */
+    @Param({"0", "64"})
+    public int depth;
+
+    @Param({"false", "true"})
+    public boolean polymorphic;
+
+    @Param({"false", "true"})
+    public boolean cycles;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private SyntheticSchema schema;
+    private ISubclassFinder subclassFinder;
+    private XmlHint hint;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        schema = SyntheticSchema.generate(classes, fanOut, depth, polymorphic, cycles);
+        subclassFinder = new ReflectionBasedSubclassFinder(scan());
+        hint = new HintGenerator(mapper, subclassFinder).getHintsFor(schema.getRoot()).orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        schema.close();
+    }
+
+    /**
+     * A complete generation with a prebuilt subclass index. The per class
+     * JAXB metadata is cached after the first run, as in a long running
+     * application.
+     */
+    @Benchmark
+    public XmlHint getHintsFor() {
+        return new HintGenerator(mapper, subclassFinder).getHintsFor(schema.getRoot()).orElseThrow();
+    }
+
+    /**
+     * Building the subclass index over the synthetic classpath entry
+     */
+    @Benchmark
+    public ISubclassFinder subclassScan() {
+        return new ReflectionBasedSubclassFinder(scan());
+    }
+
+    @Benchmark
+    public String toJson() {
+        return hint.toJson();
+    }
+
+    private Reflections scan() {
+        return new Reflections(new ConfigurationBuilder()
+            .setUrls(schema.getUrl())
+            .addClassLoaders(schema.getClassLoader())
+            .setScanners(Scanners.SubTypes)
+            .setParallel(true));
+    }
+}
@@ -0,0 +1,259 @@
+package hu.pilar.cjg.jmh;
+
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlElementRef;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtMethod;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.Modifier;
+import javassist.bytecode.AnnotationsAttribute;
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.annotation.Annotation;
+import javassist.bytecode.annotation.StringMemberValue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Generates a JAXB annotated model with javassist and loads it in its own
+ * class loader. With a depth of 0 the element classes form a tree in which
+ * every class has {@code fanOut} children, so the depth is about
+ * log<sub>fanOut</sub>(classes). With a positive depth the classes are laid
+ * out in that many levels of equal width, and every element references
+ * {@code fanOut} elements of the next level:
+ * <ul>
+ * <li>every element has a boolean and a string attribute</li>
+ * <li>children alternate between {@code @XmlElementRef} and renamed
+ * {@code @XmlElement} getters</li>
+ * <li>with {@code polymorphic} set, the children of an element (of a level,
+ * with a positive depth) extend a common abstract base and are referenced
+ * through a single {@code List<Base>} getter, so they are only found by
+ * subclass lookup</li>
+ * <li>with {@code cycles} set, every leaf references the root again</li>
+ * </ul>
+ * The class files are written into a temporary directory, which is the only
+ * classpath entry of the loader, so that scanners can be benchmarked too.
+ */
+public final class SyntheticSchema implements AutoCloseable {
+
+    private final String packageName;
+    private final Path directory;
+    private final URLClassLoader classLoader;
+    private final Class<?> root;
+    private final int classCount;
+
+    private SyntheticSchema(String packageName, Path directory, URLClassLoader classLoader, Class<?> root,
+                            int classCount) {
+        this.packageName = packageName;
+        this.directory = directory;
+        this.classLoader = classLoader;
+        this.root = root;
+        this.classCount = classCount;
+    }
+
+    /**
+     * @param classes     the number of element classes, abstract bases come on top of these
+     * @param fanOut      the number of children of each inner element
+     * @param depth       the number of levels, 0 for a tree as deep as the fan-out makes it
+     * @param polymorphic reference children through an abstract base
+     * @param cycles      make the leaves reference the root
+     */
+    public static SyntheticSchema generate(int classes, int fanOut, int depth, boolean polymorphic, boolean cycles) {
+        final var packageName = "synthetic.s" + classes + "f" + fanOut + "d" + depth
+            + (polymorphic ? "p" : "") + (cycles ? "c" : "");
+        final var layout = depth > 0 ? Layout.levels(classes, fanOut, depth) : Layout.tree(classes, fanOut);
+        try {
+            final var directory = Files.createTempDirectory("cjg-jmh");
+            final var pool = new ClassPool(true);
+            final var elements = new CtClass[classes];
+            final var bases = new CtClass[classes];
+            for (int i = 0; i < classes; i++) {
+                final var group = layout.group[i];
+                if (polymorphic && layout.children[i].length > 0 && bases[group] == null) {
+                    bases[group] = pool.makeClass(packageName + ".Base" + group);
+                    bases[group].setModifiers(Modifier.PUBLIC | Modifier.ABSTRACT);
+                    bases[group].addConstructor(CtNewConstructor.defaultConstructor(bases[group]));
+                }
+            }
+            for (int i = 0; i < classes; i++) {
+                final var member = layout.memberOf[i];
+                elements[i] = member >= 0 && bases[member] != null
+                    ? pool.makeClass(packageName + ".E" + i, bases[member])
+                    : pool.makeClass(packageName + ".E" + i);
+                elements[i].addConstructor(CtNewConstructor.defaultConstructor(elements[i]));
+            }
+            for (int i = 0; i < classes; i++) {
+                describe(elements, bases[layout.group[i]], i, layout.children[i], cycles);
+            }
+            for (CtClass c : bases) {
+                if (c != null) {
+                    c.writeFile(directory.toString());
+                }
+            }
+            for (CtClass c : elements) {
+                c.writeFile(directory.toString());
+            }
+            final var loader = new URLClassLoader(new URL[]{directory.toUri().toURL()},
+                SyntheticSchema.class.getClassLoader());
+            final var root = Class.forName(packageName + ".E0", true, loader);
+            for (int i = 1; i < classes; i++) {
+                Class.forName(packageName + ".E" + i, true, loader);
+            }
+            return new SyntheticSchema(packageName, directory, loader, root, classes);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (CannotCompileException | ClassNotFoundException ex) {
+            throw new IllegalStateException("Could not generate synthetic model", ex);
+        }
+    }
+
+    public Class<?> getRoot() {
+        return root;
+    }
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    public URL getUrl() {
+        try {
+            return directory.toUri().toURL();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        classLoader.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    private static void describe(CtClass[] elements, CtClass base, int i, int[] children, boolean cycles)
+        throws CannotCompileException {
+        final var c = elements[i];
+        final var cp = c.getClassFile().getConstPool();
+        final var rootElement = annotation(cp, XmlRootElement.class, "e" + i);
+        addClassAnnotation(c, rootElement);
+
+        addGetter(c, "boolean", "isFlag", "return true;", null, annotation(cp, XmlAttribute.class, null));
+        addGetter(c, "java.lang.String", "getName", "return null;", null, annotation(cp, XmlAttribute.class, null));
+
+        if (children.length == 0) {
+            if (cycles && i != 0) {
+                addGetter(c, elements[0].getName(), "getRoot", "return null;", null,
+                    annotation(cp, XmlElementRef.class, null));
+            }
+            return;
+        }
+        if (base != null) {
+            addGetter(c, "java.util.List", "getItems", "return null;",
+                "()Ljava/util/List<L" + base.getName().replace('.', '/') + ";>;",
+                annotation(cp, XmlElementRef.class, null));
+            return;
+        }
+        for (int k = 0; k < children.length; k++) {
+            final var ch = children[k];
+            final var element = k % 2 == 0
+                ? annotation(cp, XmlElementRef.class, null)
+                : annotation(cp, XmlElement.class, "n" + ch);
+            addGetter(c, elements[ch].getName(), "getE" + ch, "return null;", null, element);
+        }
+    }
+
+    /**
+     * Which elements each element references, and which abstract base the
+     * referenced elements share when the model is polymorphic
+     *
+     * @param children the indexes of the elements each element references
+     * @param group    the base the children of each element extend
+     * @param memberOf the base each element extends, -1 for none
+     */
+    private record Layout(int[][] children, int[] group, int[] memberOf) {
+
+        static Layout tree(int classes, int fanOut) {
+            final var children = new int[classes][];
+            final var group = new int[classes];
+            final var memberOf = new int[classes];
+            for (int i = 0; i < classes; i++) {
+                final int first = i * fanOut + 1;
+                final int end = Math.min(first + fanOut, classes);
+                children[i] = IntStream.range(Math.min(first, end), end).toArray();
+                group[i] = i;
+                memberOf[i] = i == 0 ? -1 : (i - 1) / fanOut;
+            }
+            return new Layout(children, group, memberOf);
+        }
+
+        static Layout levels(int classes, int fanOut, int depth) {
+            final int width = Math.max(1, (classes + depth - 1) / depth);
+            final var children = new int[classes][];
+            final var group = new int[classes];
+            final var memberOf = new int[classes];
+            for (int i = 0; i < classes; i++) {
+                final int level = i / width;
+                final int next = (level + 1) * width;
+                final int nextWidth = Math.max(0, Math.min(width, classes - next));
+                final var refs = new LinkedHashSet<Integer>();
+                for (int k = 0; k < fanOut && nextWidth > 0; k++) {
+                    refs.add(next + ((i % width) * fanOut + k) % nextWidth);
+                }
+                children[i] = refs.stream().mapToInt(Integer::intValue).toArray();
+                group[i] = level;
+                memberOf[i] = level - 1;
+            }
+            return new Layout(children, group, memberOf);
+        }
+    }
+
+    private static Annotation annotation(ConstPool cp, Class<?> type, String name) {
+        final var a = new Annotation(type.getName(), cp);
+        if (name != null) {
+            a.addMemberValue("name", new StringMemberValue(name, cp));
+        }
+        return a;
+    }
+
+    private static void addClassAnnotation(CtClass c, Annotation a) {
+        final var attribute = new AnnotationsAttribute(c.getClassFile().getConstPool(), AnnotationsAttribute.visibleTag);
+        attribute.addAnnotation(a);
+        c.getClassFile().addAttribute(attribute);
+    }
+
+    private static void addGetter(CtClass c, String type, String name, String body, String signature, Annotation a)
+        throws CannotCompileException {
+        final CtMethod m = CtNewMethod.make("public " + type + " " + name + "() { " + body + " }", c);
+        if (signature != null) {
+            m.setGenericSignature(signature);
+        }
+        final var attribute = new AnnotationsAttribute(c.getClassFile().getConstPool(), AnnotationsAttribute.visibleTag);
+        attribute.addAnnotation(a);
+        m.getMethodInfo().addAttribute(attribute);
+        c.addMethod(m);
+    }
+}
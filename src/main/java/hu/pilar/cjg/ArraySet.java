@@ -0,0 +1,65 @@
+package hu.pilar.cjg;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Immutable set of strings backed by an array, iterating in the order of
+ * the array. Sorted sets look up by binary search, the others, like the
+ * attribute value sets whose order is the order of the completion list,
+ * linearly.
+ */
+final class ArraySet extends AbstractSet<String> {
+
+    static final ArraySet EMPTY = new ArraySet(new String[0], true);
+
+    private final String[] elements;
+    private final boolean sorted;
+
+    private ArraySet(String[] elements, boolean sorted) {
+        this.elements = elements;
+        this.sorted = sorted;
+    }
+
+    /**
+     * @param elements distinct strings, already interned by the caller
+     */
+    static ArraySet of(String[] elements) {
+        if (elements.length == 0) {
+            return EMPTY;
+        }
+        boolean sorted = true;
+        for (int i = 1; i < elements.length && sorted; i++) {
+            sorted = elements[i - 1].compareTo(elements[i]) < 0;
+        }
+        return new ArraySet(elements, sorted);
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String s)) {
+            return false;
+        }
+        if (sorted) {
+            return Arrays.binarySearch(elements, s) >= 0;
+        }
+        for (String e : elements) {
+            if (e.equals(s)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return Arrays.asList(elements).iterator();
+    }
+}
@@ -0,0 +1,236 @@
+package hu.pilar.cjg;
+
+import hu.pilar.cjg.HintTraversal.ChildModel;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlElementRef;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * The JAXB annotation data of a single class that does not depend on the
+ * configuration of a {@link HintGenerator}: the root element name, the
+ * attribute and the child element declarations. Computed once per class and
+ * kept in a {@link ClassValue}, so every generation and every generator
+ * instance shares it without keeping the class loader of the class alive.
+ */
+final class ClassMetadata {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClassMetadata.class);
+    private static final Set<String> BOOLEAN_VALUES;
+
+    static {
+        final var values = new LinkedHashSet<String>();
+        values.add("true");
+        values.add("false");
+        BOOLEAN_VALUES = Collections.unmodifiableSet(values);
+    }
+
+    private static final ClassValue<ClassMetadata> CACHE = new ClassValue<>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> type) {
+            return new ClassMetadata(type);
+        }
+    };
+
+    /**
+     * The value set of each enum type, shared by every attribute of that type
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final ClassValue<Set<String>> ENUM_VALUES = new ClassValue<>() {
+        @Override
+        protected Set<String> computeValue(Class<?> type) {
+            EnumSet<?> set = EnumSet.allOf((Class<? extends Enum>) type);
+            final Set<String> values = set.stream().
+                map(Enum::name).
+                collect(toSet());
+            return Collections.unmodifiableSet(values);
+        }
+    };
+
+    private final String tag;
+    private final List<AttributeDescriptor> attributes;
+    private final List<ChildModel> children;
+    private final List<Class<?>> dependencies;
+
+    private ClassMetadata(Class<?> c) {
+        LOG.debug("Reading metadata of class {}", c.getName());
+        this.tag = getTagName(c).orElse(null);
+        final var attrs = new ArrayList<AttributeDescriptor>();
+        final var childs = new ArrayList<ChildModel>();
+        for (Method m : c.getMethods()) {
+            final XmlAttribute attribute = m.getAnnotation(XmlAttribute.class);
+            if (attribute != null) {
+                String n = attribute.name();
+                if ("##default".equals(n)) {
+                    n = m.getName().startsWith("get")
+                        ? m.getName().substring(3, 4).toLowerCase() + m.getName().substring(4)
+                        : m.getName().substring(2, 3).toLowerCase() + m.getName().substring(3);
+                }
+                LOG.debug("    Found XmlAttribute annotation with name {}", n);
+                attrs.add(describeAttribute(m, n));
+            }
+            if (m.isAnnotationPresent(XmlElementRef.class)) {
+                findChildType(m).ifPresent(ch -> childs.add(new ChildModel(ch, null)));
+            } else {
+                final XmlElement element = m.getAnnotation(XmlElement.class);
+                if (element != null) {
+                    findChildType(m).ifPresent(ch -> childs.add(new ChildModel(ch, element.name())));
+                }
+            }
+        }
+        this.attributes = List.copyOf(attrs);
+        this.children = List.copyOf(childs);
+        this.dependencies = findDependencies(c, attrs);
+    }
+
+    static ClassMetadata get(Class<?> c) {
+        return CACHE.get(c);
+    }
+
+    /**
+     * The root element name or null if the class is not a root element
+     */
+    String getTag() {
+        return tag;
+    }
+
+    /**
+     * The attribute declarations in method order
+     */
+    List<AttributeDescriptor> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * The child element declarations in method order
+     */
+    List<ChildModel> getChildren() {
+        return children;
+    }
+
+    /**
+     * The classes besides this one whose bytecode the metadata was read
+     * from: the superclasses and interfaces the methods are inherited from
+     * and the enum types of the attributes. JDK classes are left out.
+     */
+    List<Class<?>> getDependencies() {
+        return dependencies;
+    }
+
+    private static List<Class<?>> findDependencies(Class<?> c, List<AttributeDescriptor> attrs) {
+        final var found = new LinkedHashSet<Class<?>>();
+        final var pending = new ArrayDeque<Class<?>>();
+        pending.add(c);
+        while (!pending.isEmpty()) {
+            final var type = pending.poll();
+            if (type.getSuperclass() != null) {
+                pending.add(type.getSuperclass());
+            }
+            pending.addAll(List.of(type.getInterfaces()));
+            if (type != c && !isJdk(type)) {
+                found.add(type);
+            }
+        }
+        for (AttributeDescriptor attribute : attrs) {
+            if (attribute.type() != null && attribute.type().isEnum() && !isJdk(attribute.type())) {
+                found.add(attribute.type());
+            }
+        }
+        return List.copyOf(found);
+    }
+
+    private static boolean isJdk(Class<?> type) {
+        final var loader = type.getClassLoader();
+        return loader == null || loader == ClassLoader.getPlatformClassLoader();
+    }
+
+    static Optional<String> getTagName(Class<?> c) {
+        XmlRootElement xre = c.getAnnotation(XmlRootElement.class);
+        LOG.debug("Checking class {}", c.getSimpleName());
+        if (xre == null) {
+            LOG.debug("Returning empty");
+            return empty();
+        }
+        var tagName = "##default".equals(xre.name()) ?
+            c.getSimpleName().substring(0, 1)
+                .toLowerCase() + c.getSimpleName().substring(1)
+            : xre.name();
+
+        return of(tagName);
+    }
+
+    static Optional<Type> findReturnType(Method m) {
+        var returnType = m.getReturnType();
+        if (!Collection.class.isAssignableFrom(returnType)) {
+            return of(returnType);
+        }
+        Type c = m.getGenericReturnType();
+        if (c instanceof ParameterizedType pt) {
+            Type tv = pt.getActualTypeArguments()[0];
+            if (tv instanceof ParameterizedType tvpt) {
+                return of(tvpt.getRawType());
+            } else {
+                return of(tv);
+            }
+        }
+        LOG.warn("Return type is collection but raw type is erased or not present for method: {}", m.getName());
+        return empty();
+    }
+
+    private static Optional<Class<?>> findChildType(Method m) {
+        return findReturnType(m).flatMap(type -> {
+            if (type instanceof Class<?> c) {
+                return of(c);
+            }
+            LOG.warn("Child type {} of method {} is not a class, skipping", type, m.getName());
+            return empty();
+        });
+    }
+
+    private static AttributeDescriptor describeAttribute(Method m, String name) {
+        final var type = findReturnType(m).filter(Class.class::isInstance).map(Class.class::cast);
+        if (type.isEmpty()) {
+            return new AttributeDescriptor(name, null, Set.of());
+        }
+        final Class<?> cl = type.get();
+        if (Boolean.class.equals(cl) || boolean.class.equals(cl)) {
+            return new AttributeDescriptor(name, cl, BOOLEAN_VALUES);
+        }
+        if (Enum.class.isAssignableFrom(cl)) {
+            return new AttributeDescriptor(name, cl, ENUM_VALUES.get(cl));
+        }
+        return new AttributeDescriptor(name, cl, null);
+    }
+
+    /**
+     * @param name   the attribute name
+     * @param type   the java type of the attribute, null if it cannot be determined
+     * @param values the fixed value set of boolean and enum attributes, null
+     *               if the values are up to the {@link IAttributeValueFactory}
+     */
+    record AttributeDescriptor(String name, Class<?> type, Set<String> values) {
+
+        IAttributeValueFactory.Attribute toAttribute() {
+            return new IAttributeValueFactory.Attribute(name, type);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package hu.pilar.cjg;
+
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlElementRef;
+import jakarta.xml.bind.annotation.XmlElementRefs;
+import jakarta.xml.bind.annotation.XmlElements;
+import jakarta.xml.bind.annotation.XmlRegistry;
+import jakarta.xml.bind.annotation.XmlSeeAlso;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Subclass finder that only knows the classes reachable from a set of root
+ * classes through the JAXB annotations themselves: {@code @XmlSeeAlso},
+ * {@code @XmlElements}, {@code @XmlElementRefs}, the return types of the
+ * annotated getters and the {@code ObjectFactory} registries of the visited
+ * packages. The model is walked once in the constructor, afterwards every
+ * lookup is a map access, no classpath scanning is involved.
+ */
+public class ClosedWorldSubclassFinder implements ISubclassFinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClosedWorldSubclassFinder.class);
+
+    private final Map<Class<?>, Set<Class<?>>> subtypes = new HashMap<>();
+    private final Set<Class<?>> known = new LinkedHashSet<>();
+
+    public ClosedWorldSubclassFinder(Class<?>... roots) {
+        final var packages = new HashSet<String>();
+        final Deque<Class<?>> queue = new ArrayDeque<>();
+        Collections.addAll(queue, roots);
+        while (!queue.isEmpty()) {
+            final var c = queue.poll();
+            if (!isModelClass(c) || !known.add(c)) {
+                continue;
+            }
+            LOG.debug("Adding class {} to the closed world", c.getName());
+            final var seeAlso = c.getAnnotation(XmlSeeAlso.class);
+            if (seeAlso != null) {
+                Collections.addAll(queue, seeAlso.value());
+            }
+            if (c.getSuperclass() != null) {
+                queue.add(c.getSuperclass());
+            }
+            for (Method m : c.getMethods()) {
+                addReferencedTypes(m, queue);
+            }
+            if (c.getPackage() != null && packages.add(c.getPackageName())) {
+                addObjectFactory(c, queue);
+            }
+        }
+        for (Class<?> c : known) {
+            addToSupertypes(c, c);
+        }
+        LOG.info("Closed world of {} classes found for {} root(s)", known.size(), roots.length);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Set<Class<? extends T>> findClassesThatExtend(Class<T> parent) {
+        LOG.debug("Looking up subtypes for {}", parent.getSimpleName());
+        final Set<?> result = subtypes.getOrDefault(parent, Set.of());
+        return (Set<Class<? extends T>>) Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * All the model classes reachable from the roots
+     */
+    Set<Class<?>> getClasses() {
+        return Collections.unmodifiableSet(known);
+    }
+
+    private static boolean isModelClass(Class<?> c) {
+        return !c.isPrimitive() && !c.isArray() && !c.isEnum() && c != Object.class
+            && !c.getName().startsWith("java.") && !c.getName().startsWith("jakarta.");
+    }
+
+    private static void addReferencedTypes(Method m, Deque<Class<?>> queue) {
+        if (m.isAnnotationPresent(XmlElements.class)) {
+            for (XmlElement e : m.getAnnotation(XmlElements.class).value()) {
+                if (e.type() != XmlElement.DEFAULT.class) {
+                    queue.add(e.type());
+                }
+            }
+        }
+        if (m.isAnnotationPresent(XmlElementRefs.class)) {
+            for (XmlElementRef e : m.getAnnotation(XmlElementRefs.class).value()) {
+                if (e.type() != XmlElementRef.DEFAULT.class) {
+                    queue.add(e.type());
+                }
+            }
+        }
+        if (m.isAnnotationPresent(XmlElement.class) || m.isAnnotationPresent(XmlElementRef.class)
+            || m.isAnnotationPresent(XmlElements.class) || m.isAnnotationPresent(XmlElementRefs.class)
+            || m.isAnnotationPresent(XmlAttribute.class)) {
+            ClassMetadata.findReturnType(m)
+                .filter(Class.class::isInstance)
+                .map(Class.class::cast)
+                .ifPresent(queue::add);
+        }
+    }
+
+    private static void addObjectFactory(Class<?> c, Deque<Class<?>> queue) {
+        final Class<?> factory;
+        try {
+            factory = Class.forName(c.getPackageName() + ".ObjectFactory", false, c.getClassLoader());
+        } catch (ClassNotFoundException ex) {
+            return;
+        }
+        if (!factory.isAnnotationPresent(XmlRegistry.class)) {
+            return;
+        }
+        LOG.debug("Reading registry {}", factory.getName());
+        for (Method m : factory.getDeclaredMethods()) {
+            if (!m.getName().startsWith("create")) {
+                continue;
+            }
+            final Type type = m.getGenericReturnType();
+            if (type instanceof ParameterizedType pt && pt.getActualTypeArguments()[0] instanceof Class<?> value) {
+                // JAXBElement<Value> factory methods of global elements
+                queue.add(value);
+            } else {
+                queue.add(m.getReturnType());
+            }
+        }
+    }
+
+    private void addToSupertypes(Class<?> subtype, Class<?> c) {
+        final var superclass = c.getSuperclass();
+        if (superclass != null && superclass != Object.class) {
+            subtypes.computeIfAbsent(superclass, k -> new HashSet<>()).add(subtype);
+            addToSupertypes(subtype, superclass);
+        }
+        for (Class<?> i : c.getInterfaces()) {
+            subtypes.computeIfAbsent(i, k -> new HashSet<>()).add(subtype);
+            addToSupertypes(subtype, i);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package hu.pilar.cjg;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the compact encoding of a {@link XmlHint}: every name and value is
+ * stored once in a string table and every distinct value set once in a set
+ * table, the tags refer to both by index. The output is a call of a small
+ * decoder that rebuilds the same {@code tags} object as {@link XmlHint#toJson()}:
+ * <pre>
+ * var tags = (function (s, v, top, attrs, t) { ... })(
+ *   ["C","A","value","ONE",...],      // strings
+ *   [[3,4,5],...],                     // value sets as string indexes
+ *   [0],                               // top elements
+ *   [],                                // global attributes: name, set pairs
+ *   [0,[2,0],[1],1,[],[]...]);         // tags: name, attributes, children triples
+ * </pre>
+ */
+final class CompactHintWriter {
+
+    private static final String DECODER =
+        "var tags = (function (s, v, top, attrs, t) {\n"
+            + "function str(i) { return s[i]; }\n"
+            + "var sets = v.map(function (a) { return a.map(str); });\n"
+            + "function decodeAttrs(a) {\n"
+            + "  var o = {};\n"
+            + "  for (var i = 0; i < a.length; i += 2) { o[s[a[i]]] = sets[a[i + 1]]; }\n"
+            + "  return o;\n"
+            + "}\n"
+            + "var tags = {\"!top\": top.map(str), \"!attrs\": decodeAttrs(attrs)};\n"
+            + "for (var i = 0; i < t.length; i += 3) {\n"
+            + "  tags[s[t[i]]] = {attrs: decodeAttrs(t[i + 1]), children: t[i + 2].map(str)};\n"
+            + "}\n"
+            + "return tags;\n"
+            + "})(";
+    private static final String SUFFIX = ");";
+
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+    private final Map<Set<String>, Integer> setsByIdentity = new IdentityHashMap<>();
+    private final Map<List<String>, Integer> setsByContent = new HashMap<>();
+    private final List<Set<String>> sets = new ArrayList<>();
+
+    private CompactHintWriter() {
+    }
+
+    static void write(XmlHint hint, JsonGenerator generator) throws IOException {
+        new CompactHintWriter().encode(hint, generator);
+    }
+
+    private void encode(XmlHint hint, JsonGenerator generator) throws IOException {
+        // number everything first, so that the tables can be written ahead of the references
+        hint.getTopElements().forEach(this::string);
+        hint.getAttrs().forEach(this::attribute);
+        for (var e : hint.getAny().entrySet()) {
+            string(e.getKey());
+            e.getValue().getAttrs().forEach(this::attribute);
+            e.getValue().getChildren().forEach(this::string);
+        }
+
+        try (generator) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            generator.writeRaw(DECODER);
+            generator.writeStartArray();
+            for (String s : strings.keySet()) {
+                generator.writeString(s);
+            }
+            generator.writeEndArray();
+            generator.writeRaw(',');
+            generator.writeStartArray();
+            for (Set<String> set : sets) {
+                writeIndexes(generator, set);
+            }
+            generator.writeEndArray();
+            generator.writeRaw(',');
+            writeIndexes(generator, hint.getTopElements());
+            generator.writeRaw(',');
+            writeAttrs(generator, hint.getAttrs());
+            generator.writeRaw(',');
+            generator.writeStartArray();
+            for (var e : hint.getAny().entrySet()) {
+                generator.writeNumber(string(e.getKey()));
+                writeAttrs(generator, e.getValue().getAttrs());
+                writeIndexes(generator, e.getValue().getChildren());
+            }
+            generator.writeEndArray();
+            generator.writeRaw(SUFFIX);
+        }
+    }
+
+    private int string(String s) {
+        return strings.computeIfAbsent(s, k -> strings.size());
+    }
+
+    private void attribute(String name, Set<String> values) {
+        string(name);
+        if (!setsByIdentity.containsKey(values)) {
+            // sets of the same generation are interned, the content check covers the rest
+            final var index = setsByContent.computeIfAbsent(List.copyOf(values), k -> {
+                sets.add(values);
+                values.forEach(this::string);
+                return sets.size() - 1;
+            });
+            setsByIdentity.put(values, index);
+        }
+    }
+
+    private void writeAttrs(JsonGenerator generator, Map<String, Set<String>> attrs) throws IOException {
+        generator.writeStartArray();
+        for (var e : attrs.entrySet()) {
+            generator.writeNumber(string(e.getKey()));
+            generator.writeNumber(setsByIdentity.get(e.getValue()));
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeIndexes(JsonGenerator generator, Iterable<String> values) throws IOException {
+        generator.writeStartArray();
+        for (String v : values) {
+            generator.writeNumber(string(v));
+        }
+        generator.writeEndArray();
+    }
+}
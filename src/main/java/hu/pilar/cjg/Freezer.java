@@ -0,0 +1,79 @@
+package hu.pilar.cjg;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Converts generated hints into their frozen form: every map and set
+ * becomes a {@link SortedArrayMap} or {@link ArraySet}, equal strings and
+ * value sets become the same instance, and a tag shared by several hints
+ * is frozen only once. Aliases stay aliases of the frozen target. Frozen
+ * hints are immutable, so they can be shared between threads without
+ * locking. One freezer is used for the hints of a single generation, it is
+ * not thread-safe.
+ */
+final class Freezer {
+
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<Set<String>, ArraySet> setsByIdentity = new IdentityHashMap<>();
+    private final Map<List<String>, ArraySet> setsByContent = new HashMap<>();
+    private final Map<TagInfo, TagInfo> tags = new IdentityHashMap<>();
+
+    String string(String s) {
+        if (s == null) {
+            return null;
+        }
+        final var canonical = strings.putIfAbsent(s, s);
+        return canonical != null ? canonical : s;
+    }
+
+    /**
+     * Freezes a set keeping its iteration order, null values are dropped
+     * like in {@link ValueSets}
+     */
+    ArraySet set(Set<String> values) {
+        if (values instanceof ArraySet frozen) {
+            return frozen;
+        }
+        return setsByIdentity.computeIfAbsent(values, k -> setsByContent.computeIfAbsent(nonNull(k), content -> {
+            final var elements = new String[content.size()];
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = string(content.get(i));
+            }
+            return ArraySet.of(elements);
+        }));
+    }
+
+    /**
+     * Freezes an unordered set into a sorted one
+     */
+    ArraySet sortedSet(Collection<String> values) {
+        if (values instanceof ArraySet frozen) {
+            return frozen;
+        }
+        return set(new TreeSet<>(nonNull(values)));
+    }
+
+    private static List<String> nonNull(Collection<String> values) {
+        return values.stream().filter(Objects::nonNull).toList();
+    }
+
+    TagInfo tag(TagInfo tag) {
+        if (tag.isFrozen()) {
+            return tag;
+        }
+        // not computeIfAbsent, freezing an alias freezes its target first
+        var frozen = tags.get(tag);
+        if (frozen == null) {
+            frozen = tag.frozenCopy(this);
+            tags.put(tag, frozen);
+        }
+        return frozen;
+    }
+}
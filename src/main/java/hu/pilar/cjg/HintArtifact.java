@@ -0,0 +1,123 @@
+package hu.pilar.cjg;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Immutable, ready to serve form of a {@link XmlHint}: the UTF-8 encoded
+ * javascript, a gzip compressed copy of it and a content hash to be used as
+ * the HTTP entity tag. Everything is computed once when the artifact is
+ * created.
+ */
+public final class HintArtifact {
+
+    /**
+     * The entity tag of the gzip encoded representation gets this suffix, as
+     * it is a different byte sequence than the plain one
+     */
+    private static final String GZIP_SUFFIX = "-gz";
+
+    private final byte[] bytes;
+    private final byte[] gzipped;
+    private final String hash;
+
+    private HintArtifact(byte[] bytes) {
+        this.bytes = bytes;
+        this.gzipped = gzip(bytes);
+        this.hash = hash(bytes);
+    }
+
+    /**
+     * Serializes and compresses the hint
+     */
+    public static HintArtifact of(XmlHint hint) {
+        final var out = new ByteArrayOutputStream(8192);
+        try {
+            hint.writeTo(out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not serialize hints", ex);
+        }
+        return new HintArtifact(out.toByteArray());
+    }
+
+    /**
+     * Wraps already serialized hints, e.g. the resources of {@link PrecomputedHints}
+     */
+    public static HintArtifact of(byte[] utf8) {
+        return new HintArtifact(utf8.clone());
+    }
+
+    /**
+     * Read-only view of the UTF-8 encoded javascript
+     */
+    public ByteBuffer getBytes() {
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    /**
+     * Read-only view of the gzip compressed javascript
+     */
+    public ByteBuffer getGzipped() {
+        return ByteBuffer.wrap(gzipped).asReadOnlyBuffer();
+    }
+
+    /**
+     * Base64url encoded SHA-256 hash of the UTF-8 bytes
+     */
+    public String getContentHash() {
+        return hash;
+    }
+
+    /**
+     * Quoted strong entity tag of the requested representation
+     */
+    public String getETag(boolean gzip) {
+        return '"' + hash + (gzip ? GZIP_SUFFIX : "") + '"';
+    }
+
+    public int getLength(boolean gzip) {
+        return gzip ? gzipped.length : bytes.length;
+    }
+
+    /**
+     * Writes the requested representation without copying it
+     */
+    public void writeTo(OutputStream out, boolean gzip) throws IOException {
+        out.write(gzip ? gzipped : bytes);
+    }
+
+    public String asString() {
+        return new String(bytes, UTF_8);
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        final var out = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+        try (var gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Base64url encoded SHA-256 hash, the content hash of an artifact of the bytes
+     */
+    static String hash(byte[] bytes) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+}
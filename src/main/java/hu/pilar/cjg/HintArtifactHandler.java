@@ -0,0 +1,107 @@
+package hu.pilar.cjg;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Handler for the JDK built-in http server that serves a {@link HintArtifact}.
+ * Answers conditional requests with 304 Not Modified and serves the
+ * precompressed bytes to clients accepting gzip.
+ * <pre>
+ * server.createContext("/hints.js", new HintArtifactHandler(() -&gt; artifact));
+ * </pre>
+ */
+public class HintArtifactHandler implements HttpHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HintArtifactHandler.class);
+    private static final String CONTENT_TYPE = "application/javascript; charset=utf-8";
+
+    private final Supplier<HintArtifact> artifact;
+
+    public HintArtifactHandler(HintArtifact artifact) {
+        this(() -> artifact);
+    }
+
+    /**
+     * @param artifact asked on every request, so that the served hints can be replaced
+     */
+    public HintArtifactHandler(Supplier<HintArtifact> artifact) {
+        this.artifact = artifact;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            final var method = exchange.getRequestMethod();
+            final var head = "HEAD".equals(method);
+            if (!head && !"GET".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            final var current = artifact.get();
+            final var gzip = acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            final var headers = exchange.getResponseHeaders();
+            headers.set("ETag", current.getETag(gzip));
+            headers.set("Vary", "Accept-Encoding");
+            headers.set("Cache-Control", "no-cache");
+            if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), current)) {
+                LOG.debug("Hints not modified for {}", exchange.getRequestURI());
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            headers.set("Content-Type", CONTENT_TYPE);
+            if (gzip) {
+                headers.set("Content-Encoding", "gzip");
+            }
+            if (head) {
+                headers.set("Content-Length", Integer.toString(current.getLength(gzip)));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, current.getLength(gzip));
+            current.writeTo(exchange.getResponseBody(), gzip);
+        }
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            final var parts = coding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return parts.length == 1 || !parts[1].trim().matches("q\\s*=\\s*0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Weak comparison of the If-None-Match entity tags with both
+     * representations of the artifact
+     */
+    static boolean matches(String ifNoneMatch, HintArtifact artifact) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            var t = tag.trim();
+            if ("*".equals(t)) {
+                return true;
+            }
+            if (t.startsWith("W/")) {
+                t = t.substring(2);
+            }
+            if (t.equals(artifact.getETag(false)) || t.equals(artifact.getETag(true))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
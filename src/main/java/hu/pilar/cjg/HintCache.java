@@ -0,0 +1,243 @@
+package hu.pilar.cjg;
+
+import hu.pilar.cjg.IAttributeValueFactory.Attribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe memoizing cache for generated hints. Entries are keyed
+ * by the root class and the configuration of the generator that produced
+ * them and hold the finished {@link XmlHint}, its serialized form and the
+ * compressed {@link HintArtifact}.
+ * Concurrent requests for the same key share a single generation; the least
+ * recently used entry is evicted once the cache is full.
+ */
+public class HintCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HintCache.class);
+
+    private final int maximumSize;
+    /**
+     * Finished entries in access order, guarded by its own monitor
+     */
+    private final Map<Key, Entry> entries;
+    /**
+     * Generations currently running, so that concurrent callers can wait for
+     * them instead of starting their own
+     */
+    private final Map<Key, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    /**
+     * Consulted before generating, when set
+     */
+    private volatile HintStore store;
+
+    public HintCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > HintCache.this.maximumSize) {
+                    LOG.debug("Evicting hints for {}", eldest.getKey().root().getName());
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the hints for the given root class, generating them with the
+     * given generator on the first request.
+     */
+    public Optional<XmlHint> getHintsFor(HintGenerator generator, Class<?> root) {
+        return Optional.ofNullable(get(generator, root).hint());
+    }
+
+    /**
+     * Returns the serialized hints (see {@link XmlHint#toJson()}) for the
+     * given root class, generating them with the given generator on the first
+     * request.
+     */
+    public Optional<String> getJsonFor(HintGenerator generator, Class<?> root) {
+        return Optional.ofNullable(get(generator, root).json());
+    }
+
+    /**
+     * Returns the serialized and compressed hints for the given root class,
+     * ready to be served over HTTP.
+     */
+    public Optional<HintArtifact> getArtifactFor(HintGenerator generator, Class<?> root) {
+        return Optional.ofNullable(get(generator, root).artifact());
+    }
+
+    /**
+     * Restores the hints from the store on a miss if they are still up to
+     * date there, and stores the ones generated otherwise, so that a restart
+     * does not have to generate them again
+     *
+     * @param store the store or null to always generate
+     */
+    public void setStore(HintStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Drops every finished entry. Generations already running are not
+     * affected.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Patches the hints cached for generators reading their values from the
+     * given factory with its new values (see {@link XmlHint#withValues(Map)})
+     * and serializes the affected ones again, without running the generator.
+     * Hints of generators with other factories are left alone, even if they
+     * have attributes of the same name and type. Meant to be registered as a
+     * {@link RefreshingValueFactory} listener:
+     * <pre>
+     * factory.addListener(changed -&gt; cache.refreshValues(factory, changed));
+     * </pre>
+     *
+     * @return the number of entries replaced
+     */
+    public int refreshValues(IAttributeValueFactory factory, Map<Attribute, Set<String>> changed) {
+        final Map<Key, Entry> snapshot;
+        synchronized (entries) {
+            snapshot = Map.copyOf(entries);
+        }
+        int replaced = 0;
+        for (Map.Entry<Key, Entry> e : snapshot.entrySet()) {
+            final var hint = e.getValue().hint();
+            if (hint == null || !HintGenerator.usesValueFactory(e.getKey().configuration(), factory)) {
+                continue;
+            }
+            final var patched = hint.withValues(changed);
+            if (patched == hint) {
+                continue;
+            }
+            final var artifact = HintArtifact.of(patched);
+            synchronized (entries) {
+                if (entries.replace(e.getKey(), e.getValue(), new Entry(patched, artifact.asString(), artifact))) {
+                    replaced++;
+                }
+            }
+        }
+        LOG.debug("Refreshed values of {} cached hints", replaced);
+        return replaced;
+    }
+
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private Entry get(HintGenerator generator, Class<?> root) {
+        final var key = new Key(root, generator.configuration());
+        var entry = lookup(key);
+        if (entry != null) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        final var future = new CompletableFuture<Entry>();
+        final var running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            LOG.debug("Waiting for running generation of hints for {}", root.getName());
+            return join(running);
+        }
+        try {
+            // another thread may have finished between the lookup and registering the future
+            entry = lookup(key);
+            if (entry == null) {
+                entry = generate(generator, root);
+                synchronized (entries) {
+                    entries.put(key, entry);
+                }
+            }
+            future.complete(entry);
+            return entry;
+        } catch (RuntimeException | Error ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private Entry lookup(Key key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private Entry generate(HintGenerator generator, Class<?> root) {
+        final var s = store;
+        if (s != null) {
+            final var stored = s.get(generator, root);
+            return stored == null
+                ? new Entry(null, null, null)
+                : new Entry(stored.hint(), stored.artifact().asString(), stored.artifact());
+        }
+        LOG.debug("Generating hints for {}", root.getName());
+        return generator.getHintsFor(root)
+            .map(hint -> {
+                final var artifact = HintArtifact.of(hint);
+                return new Entry(hint, artifact.asString(), artifact);
+            })
+            .orElse(new Entry(null, null, null));
+    }
+
+    private static Entry join(CompletableFuture<Entry> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (ex.getCause() instanceof Error e) {
+                throw e;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Snapshot of the cache counters
+     *
+     * @param hits      lookups answered from a finished entry
+     * @param misses    lookups that had to generate or wait for a running generation
+     * @param evictions entries dropped because the cache was full
+     * @param size      number of finished entries currently held
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+    }
+
+    private record Key(Class<?> root, Object configuration) {
+    }
+
+    private record Entry(XmlHint hint, String json, HintArtifact artifact) {
+    }
+}
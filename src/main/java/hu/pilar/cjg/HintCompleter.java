@@ -0,0 +1,400 @@
+package hu.pilar.cjg;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes completions from a {@link XmlHint} on the server, for editors that
+ * do not run the codemirror hint addon. Given the text of a document up to the
+ * cursor it returns the child elements, the closing tag, the attributes or the
+ * attribute values valid at that position, filtered by the word being typed:
+ * <pre>
+ * var completer = new HintCompleter(hint);
+ * var session = completer.newSession();  // one per edited document
+ * session.complete("&lt;C&gt;&lt;A value=\"T").candidates(); // [TWO, THREE]
+ * </pre>
+ * The element stack is parsed with StAX. A {@link Session} keeps the stack of
+ * the last request and parses only the text typed since, so a keystroke costs
+ * the parse of the last few characters and a few trie lookups.
+ */
+public final class HintCompleter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HintCompleter.class);
+
+    private final XMLInputFactory inputFactory;
+    private final PrefixTrie topElements;
+    private final PrefixTrie globalAttributes;
+    private final Map<String, PrefixTrie> globalValues = new HashMap<>();
+    private final Map<String, TagTries> tags = new HashMap<>();
+
+    public HintCompleter(XmlHint hint) {
+        inputFactory = XMLInputFactory.newFactory();
+        // ancestors are replayed without their attributes, see Session
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        topElements = PrefixTrie.of(hint.getTopElements());
+        globalAttributes = PrefixTrie.of(hint.getAttrs().keySet());
+        hint.getAttrs().forEach((name, values) -> globalValues.put(name, PrefixTrie.of(values)));
+        hint.getAny().forEach((name, tag) -> tags.put(name, new TagTries(tag)));
+    }
+
+    public Session newSession() {
+        return new Session();
+    }
+
+    /**
+     * Completes a document without keeping state between the calls
+     *
+     * @param document the text of the document
+     * @param cursor   the offset of the cursor in the text
+     */
+    public Completion complete(String document, int cursor) {
+        return newSession().complete(document.substring(0, cursor));
+    }
+
+    /**
+     * Completions of one edited document, not thread safe
+     */
+    public final class Session {
+
+        /**
+         * The text of the last request, parsed up to the start of the first
+         * unfinished tag, comment, CDATA section or processing instruction
+         */
+        private String text = "";
+        private int parsed;
+        /**
+         * The open elements at the end of the parsed text
+         */
+        private List<String> stack = List.of();
+
+        private Session() {
+        }
+
+        /**
+         * @param prefix the text of the document up to the cursor
+         */
+        public Completion complete(CharSequence prefix) {
+            final var current = prefix.toString();
+            final var tail = Tail.of(current, unfinishedMarkup(current));
+            final var open = openElements(tail.start);
+            final var parent = open.isEmpty() ? null : open.get(open.size() - 1);
+            return switch (tail.kind) {
+                case ELEMENT -> {
+                    final var trie = parent == null ? topElements : tries(parent).children;
+                    yield new Completion(tail.kind, parent, null, tail.word, trie.withPrefix(tail.word));
+                }
+                case CLOSING_TAG -> new Completion(tail.kind, parent, null, tail.word,
+                    parent != null && parent.startsWith(tail.word) ? List.of(parent) : List.of());
+                case ATTRIBUTE -> new Completion(tail.kind, tail.element, null, tail.word,
+                    attributes(tail.element, tail.word, tail.present));
+                case ATTRIBUTE_VALUE -> new Completion(tail.kind, tail.element, tail.attribute, tail.word,
+                    values(tail.element, tail.attribute, tail.word));
+                case NONE -> new Completion(tail.kind, parent, null, "", List.of());
+            };
+        }
+
+        /**
+         * Returns the start of the first unfinished markup of the text, or
+         * its length if there is none, scanning from the last parsed
+         * position. Everything is scanned again from the start if the text
+         * before that position changed.
+         */
+        private int unfinishedMarkup(String current) {
+            if (!current.regionMatches(0, text, 0, parsed)) {
+                parsed = 0;
+                stack = List.of();
+            }
+            text = current;
+            // text without markup leaves the stack as it is, most keystrokes end here
+            final int markup = current.indexOf('<', parsed);
+            return markup < 0 ? current.length() : finishedMarkup(current, markup, current.length());
+        }
+
+        /**
+         * Returns the open elements at the end offset of the text, which must
+         * not be past its first unfinished markup. The parsed position only
+         * moves past finished markup, so the text of an unfinished comment is
+         * parsed again once it is closed instead of being taken for elements.
+         */
+        private List<String> openElements(int end) {
+            if (end > parsed) {
+                stack = parse(stack, text.subSequence(parsed, end));
+                parsed = end;
+            }
+            return stack;
+        }
+    }
+
+    /**
+     * The end of the finished markup from the offset of a {@code <}: the
+     * start of the first unfinished tag, comment, CDATA section or processing
+     * instruction, or the end offset if there is none
+     */
+    private static int finishedMarkup(String text, int from, int end) {
+        int i = from;
+        while (i >= 0 && i < end) {
+            final int close;
+            if (text.startsWith("<!--", i)) {
+                close = closing(text, "-->", i + 4, end);
+            } else if (text.startsWith("<![CDATA[", i)) {
+                close = closing(text, "]]>", i + 9, end);
+            } else if (text.startsWith("<?", i)) {
+                close = closing(text, "?>", i + 2, end);
+            } else {
+                close = Tail.tagEnd(text, i, end);
+            }
+            if (close < 0) {
+                return i;
+            }
+            i = text.indexOf('<', close);
+        }
+        return end;
+    }
+
+    /**
+     * @return the offset after the delimiter, or -1 if it is not found before the end
+     */
+    private static int closing(String text, String delimiter, int from, int end) {
+        final int i = text.indexOf(delimiter, from);
+        return i >= 0 && i + delimiter.length() <= end ? i + delimiter.length() : -1;
+    }
+
+    /**
+     * Parses a fragment following the open elements of the stack. The
+     * elements are replayed as empty start tags in front of the fragment, so
+     * that the end tags in it match.
+     */
+    private List<String> parse(List<String> open, CharSequence fragment) {
+        final var text = new StringBuilder();
+        for (String name : open) {
+            text.append('<').append(name).append('>');
+        }
+        text.append(fragment);
+        final var result = new ArrayList<String>();
+        try {
+            final var reader = inputFactory.createXMLStreamReader(new StringReader(text.toString()));
+            try {
+                while (reader.hasNext()) {
+                    switch (reader.next()) {
+                        case XMLStreamConstants.START_ELEMENT -> result.add(reader.getLocalName());
+                        case XMLStreamConstants.END_ELEMENT -> result.remove(result.size() - 1);
+                        default -> {
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException ex) {
+            // the end of an unfinished document, or an error the editor shows anyway
+            LOG.trace("Stopped parsing at {}", ex.getLocation(), ex);
+        }
+        return List.copyOf(result);
+    }
+
+    private TagTries tries(String qualifiedName) {
+        final var tag = tags.get(localName(qualifiedName));
+        return tag != null ? tag : TagTries.EMPTY;
+    }
+
+    private List<String> attributes(String element, String word, Set<String> present) {
+        final var result = new ArrayList<String>();
+        for (String name : tries(element).attributes.withPrefix(word)) {
+            if (!present.contains(name)) {
+                result.add(name);
+            }
+        }
+        for (String name : globalAttributes.withPrefix(word)) {
+            if (!present.contains(name) && !result.contains(name)) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    private List<String> values(String element, String attribute, String word) {
+        var trie = tries(element).values.get(attribute);
+        if (trie == null) {
+            trie = globalValues.get(attribute);
+        }
+        return trie == null ? List.of() : trie.withPrefix(word);
+    }
+
+    /**
+     * The completions at a position
+     *
+     * @param kind       what is completed
+     * @param element    the element the completion is in, or the parent of
+     *                   the element being typed, null at the top
+     * @param attribute  the attribute of a value completion
+     * @param prefix     the part of the word already typed
+     * @param candidates the words starting with the prefix, in hint order
+     */
+    public record Completion(Kind kind, String element, String attribute, String prefix, List<String> candidates) {
+
+        public enum Kind {
+            ELEMENT,
+            CLOSING_TAG,
+            ATTRIBUTE,
+            ATTRIBUTE_VALUE,
+            /**
+             * Text content, comments and other positions without completions
+             */
+            NONE
+        }
+    }
+
+    private static String localName(String qualifiedName) {
+        return qualifiedName.substring(qualifiedName.indexOf(':') + 1);
+    }
+
+    /**
+     * The tries of a tag
+     */
+    private static final class TagTries {
+
+        static final TagTries EMPTY = new TagTries(new TagInfo(""));
+
+        final PrefixTrie children;
+        final PrefixTrie attributes;
+        final Map<String, PrefixTrie> values = new HashMap<>();
+
+        TagTries(TagInfo tag) {
+            children = PrefixTrie.of(tag.getChildren());
+            attributes = PrefixTrie.of(tag.getAttrs().keySet());
+            tag.getAttrs().forEach((name, v) -> values.put(name, PrefixTrie.of(v)));
+        }
+    }
+
+    /**
+     * What the cursor is in: found by scanning forward through the unfinished
+     * markup, nothing inside comments, CDATA sections and processing
+     * instructions
+     */
+    private static final class Tail {
+
+        /**
+         * Offset of the unfinished markup, or the end of the prefix outside it
+         */
+        int start;
+        Completion.Kind kind = Completion.Kind.NONE;
+        String element;
+        String attribute;
+        String word = "";
+        final Set<String> present = new HashSet<>();
+
+        /**
+         * @param lt the start of the unfinished markup, or the length of the prefix
+         */
+        static Tail of(CharSequence prefix, int lt) {
+            final var tail = new Tail();
+            tail.start = lt;
+            if (lt == prefix.length() || prefix.charAt(lt) != '<') {
+                return tail;
+            }
+            int i = lt + 1;
+            final boolean closing = i < prefix.length() && prefix.charAt(i) == '/';
+            if (closing) {
+                i++;
+            }
+            final int nameStart = i;
+            while (i < prefix.length() && isNameChar(prefix.charAt(i))) {
+                i++;
+            }
+            final var name = prefix.subSequence(nameStart, i).toString();
+            if (i == prefix.length()) {
+                tail.kind = closing ? Completion.Kind.CLOSING_TAG : Completion.Kind.ELEMENT;
+                tail.word = name;
+                return tail;
+            }
+            if (closing || name.isEmpty() || !Character.isWhitespace(prefix.charAt(i))) {
+                // comments, CDATA sections, processing instructions, or an empty tag being closed
+                return tail;
+            }
+            tail.element = name;
+            // attributes: name = "value" ...
+            while (true) {
+                while (i < prefix.length() && Character.isWhitespace(prefix.charAt(i))) {
+                    i++;
+                }
+                final int attrStart = i;
+                while (i < prefix.length() && isNameChar(prefix.charAt(i))) {
+                    i++;
+                }
+                final var attr = prefix.subSequence(attrStart, i).toString();
+                if (i == prefix.length()) {
+                    tail.kind = Completion.Kind.ATTRIBUTE;
+                    tail.word = attr;
+                    return tail;
+                }
+                while (i < prefix.length() && Character.isWhitespace(prefix.charAt(i))) {
+                    i++;
+                }
+                if (attr.isEmpty() || i == prefix.length() || prefix.charAt(i) != '=') {
+                    return tail;
+                }
+                i++;
+                while (i < prefix.length() && Character.isWhitespace(prefix.charAt(i))) {
+                    i++;
+                }
+                if (i == prefix.length() || (prefix.charAt(i) != '"' && prefix.charAt(i) != '\'')) {
+                    return tail;
+                }
+                final char quote = prefix.charAt(i++);
+                final int valueStart = i;
+                while (i < prefix.length() && prefix.charAt(i) != quote) {
+                    i++;
+                }
+                if (i == prefix.length()) {
+                    tail.kind = Completion.Kind.ATTRIBUTE_VALUE;
+                    tail.attribute = attr;
+                    tail.word = prefix.subSequence(valueStart, i).toString();
+                    return tail;
+                }
+                tail.present.add(attr);
+                i++;
+                if (i == prefix.length() || !Character.isWhitespace(prefix.charAt(i))) {
+                    return tail;
+                }
+            }
+        }
+
+        /**
+         * The offset after the closing {@code >} of the tag starting at the
+         * offset, or -1 if the tag is not finished before the end
+         */
+        private static int tagEnd(CharSequence prefix, int lt, int end) {
+            char quote = 0;
+            for (int i = lt + 1; i < end; i++) {
+                final char c = prefix.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == '>') {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+
+        private static boolean isNameChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == ':';
+        }
+    }
+}
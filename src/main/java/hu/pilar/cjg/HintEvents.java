@@ -0,0 +1,70 @@
+package hu.pilar.cjg;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder events of hint generation, recorded next to the
+ * {@link IGenerationListener} callbacks. Disabled events cost a check, so
+ * they are always emitted.
+ */
+final class HintEvents {
+
+    private static final String CATEGORY = "codemirror-jaxb";
+
+    private HintEvents() {
+    }
+
+    @Name("hu.pilar.cjg.Generation")
+    @Label("Hint Generation")
+    @Category(CATEGORY)
+    @Description("Generation of the hints of one or more root classes")
+    static final class Generation extends Event {
+        @Label("Roots")
+        int roots;
+        @Label("Classes")
+        int classes;
+        @Label("Tags")
+        int tags;
+    }
+
+    @Name("hu.pilar.cjg.SubclassLookup")
+    @Label("Subclass Lookup")
+    @Category(CATEGORY)
+    static final class SubclassLookup extends Event {
+        @Label("Parent")
+        Class<?> parent;
+        @Label("Found")
+        int found;
+    }
+
+    @Name("hu.pilar.cjg.ClassDescription")
+    @Label("Class Description")
+    @Category(CATEGORY)
+    @Description("Reading the JAXB annotations of a class")
+    static final class ClassDescription extends Event {
+        @Label("Type")
+        Class<?> type;
+    }
+
+    @Name("hu.pilar.cjg.ValueLookup")
+    @Label("Attribute Value Lookup")
+    @Category(CATEGORY)
+    static final class ValueLookup extends Event {
+        @Label("Attributes")
+        int attributes;
+    }
+
+    @Name("hu.pilar.cjg.Serialization")
+    @Label("Hint Serialization")
+    @Category(CATEGORY)
+    static final class Serialization extends Event {
+        @Label("Size")
+        @DataAmount
+        long size;
+    }
+}
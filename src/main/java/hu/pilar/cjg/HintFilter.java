@@ -0,0 +1,48 @@
+package hu.pilar.cjg;
+
+import hu.pilar.cjg.IAttributeValueFactory.Attribute;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Selects the variant of a hint served to a user role or tenant, see
+ * {@link XmlHint#project(HintFilter)}
+ *
+ * @param tags       the tags to keep, by name
+ * @param attributes the attributes to keep, by tag and attribute name. The
+ *                   global attributes, allowed on every tag, are tested
+ *                   with {@link #GLOBAL} as the tag name.
+ * @param values     replacement values of attributes provided by the
+ *                   {@link IAttributeValueFactory}
+ */
+public record HintFilter(Predicate<String> tags, BiPredicate<String, String> attributes,
+                         Map<Attribute, Set<String>> values) {
+
+    /**
+     * The tag name the global attributes are tested with, the name of their
+     * property in the hints
+     */
+    public static final String GLOBAL = "!attrs";
+
+    /**
+     * Keeps everything
+     */
+    public static final HintFilter ALL = new HintFilter(tag -> true, (tag, attribute) -> true, Map.of());
+
+    public HintFilter {
+        Objects.requireNonNull(tags, "tags");
+        Objects.requireNonNull(attributes, "attributes");
+        values = Map.copyOf(values);
+    }
+
+    /**
+     * Keeps the tags accepted by the predicate with all their attributes
+     */
+    public static HintFilter ofTags(Predicate<String> tags) {
+        return new HintFilter(tags, ALL.attributes(), Map.of());
+    }
+}
@@ -1,21 +1,15 @@
 package hu.pilar.cjg;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.xml.bind.annotation.XmlAttribute;
-import jakarta.xml.bind.annotation.XmlElement;
-import jakarta.xml.bind.annotation.XmlElementRef;
-import jakarta.xml.bind.annotation.XmlRootElement;
+import hu.pilar.cjg.HintTraversal.ClassModel;
+import hu.pilar.cjg.IAttributeValueFactory.Attribute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Method;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.util.*;
-
-import static java.util.Optional.empty;
-import static java.util.Optional.of;
-import static java.util.stream.Collectors.toSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This class generates xml code completion hints from a set of JAXB annotated
@@ -26,14 +20,8 @@ import static java.util.stream.Collectors.toSet;
  */
 public class HintGenerator {
 
-    private static final Set<String> BOOLEAN_VALUES = new LinkedHashSet<>();
     private static final Logger LOG = LoggerFactory.getLogger(HintGenerator.class);
 
-    static {
-        BOOLEAN_VALUES.add("true");
-        BOOLEAN_VALUES.add("false");
-    }
-
     /**
      * Jackson JSON mapper to be used to output the taginfo structure as json
      */
@@ -42,6 +30,8 @@ public class HintGenerator {
      * Adds the ability to add sets of strings as selectable defaults to each
      * XML attribute. By default we add defaults for booleans and enums - this
      * factory can be used to add additional values for other types of fields.
+     * Asked once per generation for all the attributes, see
+     * {@link IAttributeValueFactory#getValuesForAsync(Collection)}.
      */
     private final IAttributeValueFactory valueSetFactory;
     /**
@@ -51,6 +41,17 @@ public class HintGenerator {
      * data set into this class and reuse the information.
      */
     private final ISubclassFinder subclassFinder;
+    /**
+     * Runs the discovery of the model classes in parallel when set
+     */
+    private volatile ForkJoinPool forkJoinPool;
+    /**
+     * Receives the timings of the generation phases
+     */
+    private volatile IGenerationListener listener = NO_LISTENER;
+
+    private static final IGenerationListener NO_LISTENER = new IGenerationListener() {
+    };
 
     public HintGenerator(ObjectMapper mapper) {
         this(mapper, (IAttributeValueFactory) null);
@@ -72,144 +73,183 @@ public class HintGenerator {
         this.subclassFinder = subclassFinder;
     }
 
-    private static Optional<String> getTagName(Class<?> c) {
-        XmlRootElement xre = c.getAnnotation(XmlRootElement.class);
-        LOG.debug("Checking class {}", c.getSimpleName());
-        if (xre == null) {
-            LOG.debug("Returning empty");
-            return empty();
-        }
-        var tagName = "##default".equals(xre.name()) ?
-            c.getSimpleName().substring(0, 1)
-                .toLowerCase() + c.getSimpleName().substring(1)
-            : xre.name();
+    /**
+     * Identifies the collaborators that influence the generated output. Two
+     * generators with equal configurations produce the same hints for the
+     * same root class, so caches may share results between them.
+     */
+    Object configuration() {
+        return new Configuration(mapper, valueSetFactory, subclassFinder);
+    }
 
-        return of(tagName);
+    /**
+     * Whether generators with the given {@link #configuration()} read their
+     * attribute values from the given factory.
+     */
+    static boolean usesValueFactory(Object configuration, IAttributeValueFactory factory) {
+        return configuration instanceof Configuration c && c.valueSetFactory() == factory;
     }
 
-    private static Optional<Type> findReturnType(Method m) {
-        var returnType = m.getReturnType();
-        if (!Collection.class.isAssignableFrom(returnType)) {
-            return of(returnType);
-        }
-        Type c = m.getGenericReturnType();
-        if (c instanceof ParameterizedType pt) {
-            Type tv = pt.getActualTypeArguments()[0];
-            if (tv instanceof ParameterizedType tvpt) {
-                return of(tvpt.getRawType());
-            } else {
-                return of(tv);
-            }
-        }
-        LOG.warn("Return type is collection but raw type is erased or not present for method: {}", m.getName());
-        return empty();
+    /**
+     * Completes when hints can be generated without waiting for the subclass
+     * finder to set itself up, e.g. for readiness probes. The default finder
+     * scans the classpath on a virtual thread started with the generator,
+     * generations before that wait for the scan.
+     */
+    public CompletableFuture<Void> ready() {
+        return subclassFinder.ready();
+    }
+
+    ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    /**
+     * Runs the discovery of the model classes concurrently in the given pool
+     * instead of the calling thread. The subclass finder must be thread-safe
+     * in this case. Batch generations use the common pool
+     * when no pool is set.
+     *
+     * @param forkJoinPool the pool to use or null to disable parallel discovery
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * Reports the timings and counts of the generation phases and of the
+     * serialization of the generated hints to the listener
+     *
+     * @param listener the listener or null to remove it
+     */
+    public void setListener(IGenerationListener listener) {
+        this.listener = listener != null ? listener : NO_LISTENER;
     }
 
     public Optional<XmlHint> getHintsFor(Class<?> c) {
-        HintGeneratorContext ctx = new HintGeneratorContext();
-        var t = getTagInfo(c, ctx);
-        if (t.getTag() == null) return empty();
-        XmlHint hint = new XmlHint(mapper, t);
-        for (TagInfo ti : ctx.byTag.values()) {
-            if (ti.getTag() != null) {
-                hint.addTag(ti);
+        final var roots = List.<Class<?>>of(c);
+        final var traversal = run(roots, forkJoinPool);
+        return Optional.ofNullable(project(traversal, c, new Freezer()));
+    }
+
+    /**
+     * Generates the hints for several root classes at once. The reflection
+     * over the model classes runs concurrently in the fork-join pool (see
+     * {@link #setForkJoinPool(ForkJoinPool)}) and every class is processed
+     * only once, no matter how many roots reference it - the hints of each
+     * root are projected from the shared graph. The subclass finder must be
+     * thread-safe.
+     *
+     * @return the hints by root class, roots without an {@code @XmlRootElement}
+     * annotation are left out
+     */
+    public Map<Class<?>, XmlHint> getHintsFor(Collection<Class<?>> roots) {
+        final var pool = forkJoinPool != null ? forkJoinPool : ForkJoinPool.commonPool();
+        final var traversal = run(roots, pool);
+        final var result = new LinkedHashMap<Class<?>, XmlHint>();
+        // one freezer, so that the tags shared by the roots stay shared
+        final var freezer = new Freezer();
+        for (Class<?> root : roots) {
+            final var hint = project(traversal, root, freezer);
+            if (hint != null) {
+                result.put(root, hint);
             }
         }
-        return of(hint);
+        return result;
     }
 
-    private TagInfo getTagInfo(final Type type, final HintGeneratorContext ctx) {
-        var c = (Class<?>) (type);
-        if (ctx.byClass.containsKey(c)) {
-            return ctx.byClass.get(c);
-        }
-        TagInfo t = getTagName(c).map(TagInfo::new).orElse(new TagInfo(null));
-        ctx.byClass.put(c, t);
-        ctx.byTag.put(t.getTag(), t);
-        addAttributes(t, c);
-        addOverrides(t, c, ctx);
-        addChildren(t, c, ctx);
-        return t;
-    }
-
-    private void addAttributes(final TagInfo t, final Class<?> c) {
-        LOG.debug("Adding attributes for class {} for tag {}", c.getSimpleName(), t.getTag());
-        for (Method m : c.getMethods()) {
-            if (m.isAnnotationPresent(XmlAttribute.class)) {
-                XmlAttribute attrs = m.getAnnotation(XmlAttribute.class);
-                if ("##default".equals(attrs.name())) {
-                    String n
-                        = m.getName().startsWith("get")
-                        ? m.getName().substring(3, 4).toLowerCase() + m.getName().substring(4)
-                        : m.getName().substring(2, 3).toLowerCase() + m.getName().substring(3);
-                    LOG.debug("    Found XmlAttribute annotation with name {}", n);
-                    t.withAttribute(n, findValues(m, n));
-                } else {
-                    LOG.debug("    Found XmlAttribute annotation with name {}", attrs.name());
-                    t.withAttribute(attrs.name(), findValues(m, attrs.name()));
-                }
-            }
+    private HintTraversal run(Collection<Class<?>> roots, ForkJoinPool pool) {
+        final var event = new HintEvents.Generation();
+        event.begin();
+        final long start = System.nanoTime();
+        final var traversal = HintTraversal.run(roots, this::describe, this::lookupValues, pool);
+        final long nanos = System.nanoTime() - start;
+        event.end();
+        if (event.shouldCommit()) {
+            event.roots = roots.size();
+            event.classes = traversal.getClassCount();
+            event.tags = traversal.getTagCount();
+            event.commit();
         }
+        listener.generated(roots, traversal.getClassCount(), traversal.getTagCount(), nanos);
+        return traversal;
     }
 
-    private void addChildren(final TagInfo t, final Type type, final HintGeneratorContext ctx) {
-        var c = (Class<?>) type;
-        LOG.debug("Adding child nodes for class {} for tag {}", c.getSimpleName(), t.getTag());
-        for (Method m : c.getMethods()) {
-            if (m.isAnnotationPresent(XmlElementRef.class)) {
-                findReturnType(m)
-                    .map(ch -> getTagInfo(ch, ctx))
-                    .ifPresent(t::withChild);
-            } else if (m.isAnnotationPresent(XmlElement.class)) {
-                XmlElement ref = m.getAnnotation(XmlElement.class);
-                findReturnType(m)
-                    .map(rt -> getTagInfo(rt, ctx))
-                    .ifPresent(rtti -> {
-                        final var clone = new TagInfo(ref.name(), rtti);
-                        t.withChild(clone);
-                        ctx.byTag.put(clone.getTag(), clone);
-                    });
-            }
+    private XmlHint project(HintTraversal traversal, Class<?> root, Freezer freezer) {
+        final var hint = traversal.project(mapper, listener, root);
+        if (hint == null) {
+            return null;
         }
+        return hint.freeze(freezer);
     }
 
-    private Set<String> findValues(Method m, String name) {
-        return findReturnType(m)
-            .filter(Class.class::isInstance)
-            .map(type -> {
-                Class<?> cl = (Class<?>) type;
-                if (Boolean.class.equals(cl) || boolean.class.equals(cl)) {
-                    return BOOLEAN_VALUES;
-                }
-                if (Enum.class.isAssignableFrom(cl)) {
-                    final var c = (Class<? extends Enum>) cl;
-                    EnumSet<?> set = EnumSet.allOf(c);
-                    return set.stream().
-                        map(Enum::name).
-                        collect(toSet());
-                }
-                if (this.valueSetFactory != null) {
-                    return valueSetFactory.getValuesFor(name, cl);
-                }
-                return null;
-            }).orElse(Set.of());
-    }
-
-    private <T> void addOverrides(TagInfo t, Class<T> c, HintGeneratorContext ctx) {
-        final var set = subclassFinder.findClassesThatExtend(c);
-        set.stream().map(HintGenerator::getTagName)
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .forEach(t.getOverrides()::add);
-        set.forEach(x -> getTagInfo(x, ctx));
+    /**
+     * Collects everything the generator needs to know about a single class.
+     * The annotation data comes from the shared {@link ClassMetadata}, only
+     * the subclass lookup depends on this generator. Only reads the class
+     * itself, so it can run for many classes concurrently.
+     */
+    private ClassModel describe(final Class<?> c) {
+        final var described = new HintEvents.ClassDescription();
+        described.begin();
+        long start = System.nanoTime();
+        final var metadata = ClassMetadata.get(c);
+        long nanos = System.nanoTime() - start;
+        described.end();
+        if (described.shouldCommit()) {
+            described.type = c;
+            described.commit();
+        }
+        listener.classDescribed(c, nanos);
+        LOG.debug("Describing class {} for tag {}", c.getSimpleName(), metadata.getTag());
+
+        final var lookup = new HintEvents.SubclassLookup();
+        lookup.begin();
+        start = System.nanoTime();
+        final var subclasses = List.<Class<?>>copyOf(subclassFinder.findClassesThatExtend(c));
+        nanos = System.nanoTime() - start;
+        lookup.end();
+        if (lookup.shouldCommit()) {
+            lookup.parent = c;
+            lookup.found = subclasses.size();
+            lookup.commit();
+        }
+        listener.subclassLookup(c, subclasses.size(), nanos);
+        return new ClassModel(metadata.getTag(), metadata.getAttributes(), subclasses, metadata.getChildren());
     }
 
     /**
-     * inner class to keep record of classes that were already processed.
+     * Asks the value factory for all the attributes of a generation at once
+     * and waits for the answer
      */
-    private static class HintGeneratorContext {
-        private final Map<Class<?>, TagInfo> byClass = new HashMap<>();
-        private final Map<String, TagInfo> byTag = new HashMap<>();
+    private Map<Attribute, Set<String>> lookupValues(Collection<Attribute> attributes) {
+        if (valueSetFactory == null) {
+            return Map.of();
+        }
+        LOG.debug("Looking up values of {} attributes", attributes.size());
+        final var event = new HintEvents.ValueLookup();
+        event.begin();
+        final long start = System.nanoTime();
+        try {
+            final var values = valueSetFactory.getValuesForAsync(List.copyOf(attributes)).join();
+            final long nanos = System.nanoTime() - start;
+            event.end();
+            if (event.shouldCommit()) {
+                event.attributes = attributes.size();
+                event.commit();
+            }
+            listener.valuesResolved(attributes.size(), nanos);
+            return values != null ? values : Map.of();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private record Configuration(ObjectMapper mapper, IAttributeValueFactory valueSetFactory,
+                                 ISubclassFinder subclassFinder) {
     }
 
 }
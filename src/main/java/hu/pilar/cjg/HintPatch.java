@@ -0,0 +1,177 @@
+package hu.pilar.cjg;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The structural difference of two versions of the same hints: changed top
+ * elements and global attributes, removed and added tags, and the changed
+ * attributes and children of the remaining ones. Serialized as a small json
+ * object, which {@link #APPLIER} applies to the {@code tags} object of the
+ * previous version on the client:
+ * <pre>
+ * {"from":"...","to":"...","remove":["old"],"put":{"new":{...}},
+ *  "update":{"C":{"attrs":{"value3":["1980"]},"removeAttrs":["x"],"children":[...]}}}
+ * </pre>
+ * The versions are the content hashes of the hints (see
+ * {@link XmlHint#getVersion()}), a patch must only be applied to the hints
+ * having its {@code from} version.
+ */
+@JsonAutoDetect(fieldVisibility = Visibility.ANY, getterVisibility = Visibility.NONE,
+    isGetterVisibility = Visibility.NONE)
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public final class HintPatch {
+
+    /**
+     * Javascript defining {@code applyTagsPatch(tags, patch)}, which applies a
+     * parsed patch to the tags object in place and returns it
+     */
+    public static final String APPLIER =
+        "function applyTagsPatch(tags, patch) {\n"
+            + "  var name, a;\n"
+            + "  if (patch.top) { tags[\"!top\"] = patch.top; }\n"
+            + "  if (patch.attrs) { tags[\"!attrs\"] = patch.attrs; }\n"
+            + "  (patch.remove || []).forEach(function (n) { delete tags[n]; });\n"
+            + "  for (name in patch.put || {}) { tags[name] = patch.put[name]; }\n"
+            + "  for (name in patch.update || {}) {\n"
+            + "    var u = patch.update[name], tag = tags[name];\n"
+            + "    for (a in u.attrs || {}) { tag.attrs[a] = u.attrs[a]; }\n"
+            + "    (u.removeAttrs || []).forEach(function (r) { delete tag.attrs[r]; });\n"
+            + "    if (u.children) { tag.children = u.children; }\n"
+            + "  }\n"
+            + "  return tags;\n"
+            + "}\n";
+
+    private final String from;
+    private final String to;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final List<String> top;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final Map<String, Set<String>> attrs;
+    private final List<String> remove = new ArrayList<>();
+    private final Map<String, TagInfo> put = new TreeMap<>();
+    private final Map<String, TagUpdate> update = new TreeMap<>();
+    @JsonIgnore
+    private final ObjectMapper mapper;
+
+    private HintPatch(XmlHint previous, XmlHint current) {
+        this.from = previous.getVersion();
+        this.to = current.getVersion();
+        this.mapper = current.getMapper();
+        this.top = previous.getTopElements().equals(current.getTopElements()) ? null : current.getTopElements();
+        this.attrs = sameAttrs(previous.getAttrs(), current.getAttrs()) ? null : current.getAttrs();
+        final var before = previous.getAny();
+        final var after = current.getAny();
+        for (String name : before.keySet()) {
+            if (!after.containsKey(name)) {
+                remove.add(name);
+            }
+        }
+        for (var e : after.entrySet()) {
+            final var old = before.get(e.getKey());
+            if (old == null) {
+                put.put(e.getKey(), e.getValue());
+            } else if (old != e.getValue()) {
+                final var u = TagUpdate.between(old, e.getValue());
+                if (u != null) {
+                    update.put(e.getKey(), u);
+                }
+            }
+        }
+    }
+
+    static HintPatch between(XmlHint previous, XmlHint current) {
+        return new HintPatch(previous, current);
+    }
+
+    public String getFromVersion() {
+        return from;
+    }
+
+    public String getToVersion() {
+        return to;
+    }
+
+    /**
+     * True if the two versions produce the same {@code tags} object
+     */
+    public boolean isEmpty() {
+        return top == null && attrs == null && remove.isEmpty() && put.isEmpty() && update.isEmpty();
+    }
+
+    public String toJson() {
+        try {
+            return mapper.writeValueAsString(this);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException("Could not serialize hint patch", ex);
+        }
+    }
+
+    /**
+     * Attribute values are compared in order, as the order is visible in the
+     * completion list
+     */
+    private static boolean sameAttrs(Map<String, Set<String>> a, Map<String, Set<String>> b) {
+        if (!a.keySet().equals(b.keySet())) {
+            return false;
+        }
+        for (var e : a.entrySet()) {
+            if (!sameValues(e.getValue(), b.get(e.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameValues(Set<String> a, Set<String> b) {
+        return a == b || (a != null && b != null && List.copyOf(a).equals(List.copyOf(b)));
+    }
+
+    /**
+     * The changes of a single tag
+     *
+     * @param attrs       attributes added or having new values
+     * @param removeAttrs attributes removed
+     * @param children    the new children, null if they did not change
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    record TagUpdate(Map<String, Set<String>> attrs, List<String> removeAttrs,
+                     @JsonInclude(JsonInclude.Include.NON_NULL) Set<String> children) {
+
+        /**
+         * @return null if the two tags are the same
+         */
+        static TagUpdate between(TagInfo before, TagInfo after) {
+            final var changed = new LinkedHashMap<String, Set<String>>();
+            after.getAttrs().forEach((name, values) -> {
+                if (!sameValues(before.getAttrs().get(name), values)) {
+                    changed.put(name, values);
+                }
+            });
+            final var removed = new ArrayList<String>();
+            for (String name : before.getAttrs().keySet()) {
+                if (!after.getAttrs().containsKey(name)) {
+                    removed.add(name);
+                }
+            }
+            final var children = Objects.equals(before.getChildren(), after.getChildren()) ? null : after.getChildren();
+            if (changed.isEmpty() && removed.isEmpty() && children == null) {
+                return null;
+            }
+            return new TagUpdate(changed, removed, children);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package hu.pilar.cjg;
+
+import hu.pilar.cjg.IAttributeValueFactory.Attribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves filtered variants of one generated hint to different user roles or
+ * tenants, instead of running a generator per variant:
+ * <pre>
+ * var projections = new HintProjections(generator.getHintsFor(Root.class).get());
+ * projections.register("guest", HintFilter.ofTags(tag -&gt; !tag.startsWith("admin")));
+ * projections.getArtifactFor("guest"); // projected and serialized on first use
+ * </pre>
+ * Each variant is projected with {@link XmlHint#project(HintFilter)} and
+ * serialized once. The projections share the unchanged tags of the base
+ * hint, and variants that come out the same share one hint and artifact, so
+ * memory grows with the number of distinct variants rather than with the
+ * number of keys. Thread-safe.
+ */
+public class HintProjections {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HintProjections.class);
+
+    private final Map<String, HintFilter> filters = new ConcurrentHashMap<>();
+    private volatile Generation generation;
+
+    public HintProjections(XmlHint base) {
+        this.generation = new Generation(base);
+    }
+
+    /**
+     * Adds or replaces the filter of a key
+     */
+    public void register(String key, HintFilter filter) {
+        filters.put(key, filter);
+        generation.entries.remove(key);
+    }
+
+    public void unregister(String key) {
+        filters.remove(key);
+        generation.entries.remove(key);
+    }
+
+    /**
+     * @return empty if no filter is registered for the key
+     */
+    public Optional<XmlHint> getHintsFor(String key) {
+        return entry(key).map(Entry::hint);
+    }
+
+    /**
+     * @return empty if no filter is registered for the key
+     */
+    public Optional<HintArtifact> getArtifactFor(String key) {
+        return entry(key).map(Entry::artifact);
+    }
+
+    public XmlHint getBase() {
+        return generation.base;
+    }
+
+    /**
+     * Replaces the base hint, e.g. after generating it again. The variants are
+     * projected from it on their next use.
+     */
+    public void setBase(XmlHint base) {
+        generation = new Generation(base);
+    }
+
+    /**
+     * Patches the base hint with new values of factory provided attributes,
+     * see {@link HintCache#refreshValues(IAttributeValueFactory, Map)}. Meant
+     * to be registered as a listener of the {@link RefreshingValueFactory}
+     * the base hint was generated with.
+     *
+     * @return true if the base hint changed
+     */
+    public boolean refreshValues(Map<Attribute, Set<String>> changed) {
+        final var current = generation;
+        final var patched = current.base.withValues(changed);
+        if (patched == current.base) {
+            return false;
+        }
+        setBase(patched);
+        return true;
+    }
+
+    private Optional<Entry> entry(String key) {
+        final var current = generation;
+        final var cached = current.entries.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        final var filter = filters.get(key);
+        if (filter == null) {
+            return Optional.empty();
+        }
+        final var entry = current.project(filter);
+        current.entries.putIfAbsent(key, entry);
+        // a filter registered meanwhile must not be served the old one's result
+        if (filters.get(key) != filter) {
+            current.entries.remove(key, entry);
+        }
+        return Optional.of(entry);
+    }
+
+    /**
+     * The variants projected from one base hint
+     */
+    private static final class Generation {
+
+        final XmlHint base;
+        final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+        Generation(XmlHint base) {
+            this.base = base;
+        }
+
+        Entry project(HintFilter filter) {
+            final var hint = base.project(filter);
+            final var artifact = HintArtifact.of(hint);
+            // looked up among the cached entries, so a replaced variant is not kept alive
+            for (Entry existing : entries.values()) {
+                if (existing.artifact().getContentHash().equals(artifact.getContentHash())) {
+                    LOG.trace("Sharing the projected hints {}", artifact.getContentHash());
+                    return existing;
+                }
+            }
+            return new Entry(hint, artifact);
+        }
+    }
+
+    private record Entry(XmlHint hint, HintArtifact artifact) {
+    }
+}
@@ -0,0 +1,112 @@
+package hu.pilar.cjg;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Build time entry point that runs the {@link HintGenerator} for a set of root
+ * classes and writes the results as classpath resources (see
+ * {@link PrecomputedHints}), so that the application can serve them without
+ * any reflection or classpath scanning at runtime. The subclass lookups made
+ * during generation are written as a subtype index for the
+ * {@link IndexedSubclassFinder}. Meant to be run in the process-classes phase,
+ * e.g. with the exec-maven-plugin:
+ * <pre>
+ * HintResourceWriter [--value-factory &lt;class&gt;] &lt;outputDirectory&gt; &lt;rootClass&gt;...
+ * </pre>
+ */
+public class HintResourceWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HintResourceWriter.class);
+
+    private final HintGenerator generator;
+
+    public HintResourceWriter(HintGenerator generator) {
+        this.generator = generator;
+    }
+
+    public static void main(String[] args) throws IOException {
+        final var arguments = new ArrayList<>(List.of(args));
+        IAttributeValueFactory valueSetFactory = null;
+        if (!arguments.isEmpty() && "--value-factory".equals(arguments.get(0))) {
+            if (arguments.size() < 2) {
+                throw usage();
+            }
+            arguments.remove(0);
+            valueSetFactory = instantiate(arguments.remove(0), IAttributeValueFactory.class);
+        }
+        if (arguments.size() < 2) {
+            throw usage();
+        }
+        final var outputDirectory = Path.of(arguments.remove(0));
+        final var subclassFinder = new RecordingSubclassFinder(new ReflectionBasedSubclassFinder());
+        final var writer = new HintResourceWriter(
+            new HintGenerator(new ObjectMapper(), valueSetFactory, subclassFinder));
+        for (String rootClass : arguments) {
+            if (!writer.write(outputDirectory, loadClass(rootClass))) {
+                throw new IllegalArgumentException("Not a JAXB root element: " + rootClass);
+            }
+        }
+        subclassFinder.writeIndex(outputDirectory);
+        LOG.info("Subtype index written to {}", outputDirectory.resolve(IndexedSubclassFinder.INDEX));
+    }
+
+    /**
+     * Generates the hints for the root class and writes the javascript and the
+     * json resource for it beneath the output directory.
+     *
+     * @return false if the class is not a JAXB root element and nothing was written
+     */
+    public boolean write(Path outputDirectory, Class<?> root) throws IOException {
+        final var hint = generator.getHintsFor(root);
+        if (hint.isEmpty()) {
+            LOG.warn("No hints generated for {}, is it annotated with @XmlRootElement?", root.getName());
+            return false;
+        }
+        final var json = hint.get().toRawJson();
+        final var directory = outputDirectory.resolve(PrecomputedHints.LOCATION);
+        Files.createDirectories(directory);
+        final var js = directory.resolve(root.getName() + PrecomputedHints.JS_SUFFIX);
+        Files.writeString(js, "var tags = " + json + ";", UTF_8);
+        Files.writeString(directory.resolve(root.getName() + PrecomputedHints.JSON_SUFFIX), json, UTF_8);
+        LOG.info("Hints for {} written to {}", root.getName(), js);
+        return true;
+    }
+
+    private static Class<?> loadClass(String name) {
+        try {
+            return Class.forName(name, false, Thread.currentThread().getContextClassLoader());
+        } catch (ClassNotFoundException ex) {
+            throw new IllegalArgumentException("Class not found on the classpath: " + name, ex);
+        }
+    }
+
+    private static <T> T instantiate(String name, Class<T> type) {
+        try {
+            return type.cast(loadClass(name).getConstructor().newInstance());
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException ex) {
+            throw new IllegalArgumentException(name + " must have a public no-arg constructor", ex);
+        } catch (InvocationTargetException ex) {
+            throw new IllegalStateException("Could not create " + name, ex.getCause());
+        }
+    }
+
+    /**
+     * Fails the build step instead of exiting with success and writing nothing
+     */
+    private static IllegalArgumentException usage() {
+        final var usage = "Usage: HintResourceWriter [--value-factory <class>] <outputDirectory> <rootClass>...";
+        System.err.println(usage);
+        return new IllegalArgumentException(usage);
+    }
+}
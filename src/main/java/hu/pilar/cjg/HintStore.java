@@ -0,0 +1,327 @@
+package hu.pilar.cjg;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import hu.pilar.cjg.IAttributeValueFactory.Attribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodType;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Keeps generated hints on disk between restarts. Every root class gets a
+ * file holding the finished tag model, the serialized javascript and a
+ * fingerprint of what the hints were generated from: the version given to
+ * the store, the bytecode of every model class visited, of their
+ * supertypes and of the enum types of their attributes, and the subtype
+ * indexes (see {@link IndexedSubclassFinder}) on the classpath. On startup
+ * the file is memory-mapped, and if the fingerprint still matches the hints
+ * are restored without reflection or classpath scanning:
+ * <pre>
+ * var store = new HintStore(Path.of("/var/cache/app/hints"), appVersion);
+ * cache.setStore(store); // or store.getHintsFor(generator, Root.class)
+ * </pre>
+ * A new subclass of a model class that is neither referenced by the model
+ * nor listed in a subtype index does not change the fingerprint, change the
+ * version when such classes are added, and whenever the values the
+ * {@link IAttributeValueFactory} returns change. A store belongs to a single
+ * generator configuration.
+ */
+public class HintStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HintStore.class);
+
+    static final String SUFFIX = ".hints";
+    /**
+     * "CJGH"
+     */
+    private static final int MAGIC = 0x434a4748;
+    private static final int FORMAT = 3;
+
+    private final Path directory;
+    private final String version;
+    /**
+     * Writes the stored model, independent of the mapper of the generator
+     */
+    private final ObjectMapper modelMapper = new ObjectMapper();
+
+    /**
+     * @param directory where the files are kept, created on the first write
+     * @param version   anything the hints depend on besides the model
+     *                  classes, e.g. the version of the application
+     */
+    public HintStore(Path directory, String version) {
+        this.directory = directory;
+        this.version = version;
+    }
+
+    /**
+     * Returns the stored hints of the root class if they are up to date,
+     * otherwise generates and stores them
+     */
+    public Optional<XmlHint> getHintsFor(HintGenerator generator, Class<?> root) {
+        return Optional.ofNullable(get(generator, root)).map(Stored::hint);
+    }
+
+    /**
+     * @return null if the root class is not a root element
+     */
+    Stored get(HintGenerator generator, Class<?> root) {
+        final var stored = load(generator.getMapper(), root);
+        if (stored != null) {
+            return stored;
+        }
+        final var hint = generator.getHintsFor(root).orElse(null);
+        if (hint == null) {
+            return null;
+        }
+        final var artifact = HintArtifact.of(hint);
+        save(root, hint, artifact);
+        return new Stored(hint, artifact);
+    }
+
+    Path fileOf(Class<?> root) {
+        return directory.resolve(root.getName() + SUFFIX);
+    }
+
+    /**
+     * @return null if there is no file or it is out of date
+     */
+    Stored load(ObjectMapper mapper, Class<?> root) {
+        final var file = fileOf(root);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+                LOG.debug("Ignoring stored hints {} of an unknown format", file);
+                return null;
+            }
+            final var fingerprint = readString(buffer);
+            final var classNames = new ArrayList<String>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                classNames.add(readString(buffer));
+            }
+            if (!fingerprint.equals(fingerprint(root, classNames))) {
+                LOG.debug("Stored hints for {} are out of date", root.getName());
+                return null;
+            }
+            final var model = section(buffer);
+            final var js = new byte[buffer.getInt()];
+            buffer.get(js);
+            final var hint = restore(mapper, root.getClassLoader(), classNames,
+                modelMapper.readValue(new ByteBufferBackedInputStream(model), StoredModel.class));
+            LOG.debug("Restored hints for {} from {}", root.getName(), file);
+            return new Stored(hint.freeze(new Freezer()), HintArtifact.of(js));
+        } catch (IOException | RuntimeException ex) {
+            // a damaged file is generated again
+            LOG.warn("Could not read stored hints {}", file, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the file of the root class, replacing the previous one
+     * atomically. Hints of classes without accessible bytecode are not stored.
+     */
+    void save(Class<?> root, XmlHint hint, HintArtifact artifact) {
+        final var classNames = hint.getClassNames();
+        final var fingerprint = fingerprint(root, classNames);
+        if (fingerprint == null) {
+            LOG.debug("Not storing hints for {}, the bytecode of its model is not available", root.getName());
+            return;
+        }
+        final var out = new ByteArrayOutputStream(8192 + artifact.getLength(false));
+        try (var data = new DataOutputStream(out)) {
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT);
+            writeString(data, fingerprint);
+            data.writeInt(classNames.size());
+            for (String name : classNames) {
+                writeString(data, name);
+            }
+            final var model = modelMapper.writeValueAsBytes(StoredModel.of(hint));
+            data.writeInt(model.length);
+            data.write(model);
+            data.writeInt(artifact.getLength(false));
+            artifact.writeTo(data, false);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        final var file = fileOf(root);
+        try {
+            Files.createDirectories(directory);
+            final var temp = Files.createTempFile(directory, root.getName(), ".tmp");
+            try {
+                Files.write(temp, out.toByteArray());
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            LOG.debug("Stored hints for {} in {}", root.getName(), file);
+        } catch (IOException ex) {
+            // the hints are still served, only the next start has to generate them again
+            LOG.warn("Could not store hints for {} in {}", root.getName(), file, ex);
+        }
+    }
+
+    /**
+     * SHA-256 of the version, the class files of the model and the subtype
+     * indexes, read from the class loader of the root class
+     *
+     * @return null if a class file cannot be read
+     */
+    private String fingerprint(Class<?> root, List<String> classNames) {
+        final var loader = root.getClassLoader() != null ? root.getClassLoader() : ClassLoader.getSystemClassLoader();
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+        update(digest, version.getBytes(UTF_8));
+        update(digest, root.getName().getBytes(UTF_8));
+        try {
+            for (String name : classNames) {
+                update(digest, name.getBytes(UTF_8));
+                try (InputStream in = loader.getResourceAsStream(name.replace('.', '/') + ".class")) {
+                    if (in == null) {
+                        return null;
+                    }
+                    update(digest, in.readAllBytes());
+                }
+            }
+            for (URL index : Collections.list(loader.getResources(IndexedSubclassFinder.INDEX))) {
+                try (InputStream in = index.openStream()) {
+                    update(digest, in.readAllBytes());
+                }
+            }
+        } catch (IOException ex) {
+            LOG.debug("Could not read the bytecode of the model of {}", root.getName(), ex);
+            return null;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+    }
+
+    /**
+     * Length prefixed, so that no two inputs hash the same
+     */
+    private static void update(MessageDigest digest, byte[] bytes) {
+        digest.update(ByteBuffer.allocate(4).putInt(0, bytes.length));
+        digest.update(bytes);
+    }
+
+    private static XmlHint restore(ObjectMapper mapper, ClassLoader loader, List<String> classNames,
+                                   StoredModel model) {
+        final var valueSets = new ValueSets();
+        final var bodies = new ArrayList<TagInfo>();
+        for (StoredTag stored : model.bodies()) {
+            final var t = new TagInfo(stored.tag());
+            stored.attrs().forEach((attribute, values) -> {
+                final var interned = valueSets.intern(new LinkedHashSet<>(values));
+                final var type = stored.sources().get(attribute);
+                if (type == null) {
+                    t.withAttribute(attribute, interned);
+                } else {
+                    t.withAttribute(attribute, interned, new Attribute(attribute, typeOf(type, loader)));
+                }
+            });
+            t.getChildren().addAll(stored.children());
+            bodies.add(t);
+        }
+        final var hint = new XmlHint(mapper, null, classNames);
+        model.tags().forEach((name, index) -> {
+            final var body = bodies.get(index);
+            final var t = name.equals(body.getTag()) ? body : TagInfo.alias(name, body);
+            hint.addTag(t, model.top().contains(name));
+        });
+        return hint;
+    }
+
+    /**
+     * Resolves a type descriptor, e.g. {@code Ljava/lang/String;} or
+     * {@code I}, without initializing the class
+     */
+    private static Class<?> typeOf(String descriptor, ClassLoader loader) {
+        return MethodType.fromMethodDescriptorString("()" + descriptor, loader).returnType();
+    }
+
+    private static ByteBuffer section(ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        final var section = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        return section;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        final var section = section(buffer);
+        return UTF_8.decode(section).toString();
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        final var bytes = s.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    record Stored(XmlHint hint, HintArtifact artifact) {
+    }
+
+    /**
+     * The tag model as written to the file. Every body (see
+     * {@link TagInfo#getBody()}) is written once, the tags refer to them by
+     * index. Value sets are lists, so that their order survives.
+     */
+    record StoredModel(List<String> top, Map<String, Integer> tags, List<StoredTag> bodies) {
+
+        static StoredModel of(XmlHint hint) {
+            final Map<TagInfo, Integer> indexes = new IdentityHashMap<>();
+            final var bodies = new ArrayList<StoredTag>();
+            final var tags = new LinkedHashMap<String, Integer>();
+            hint.getAny().forEach((name, tag) -> tags.put(name, indexes.computeIfAbsent(tag.getBody(), t -> {
+                final var attrs = new LinkedHashMap<String, List<String>>();
+                t.getAttrs().forEach((attribute, values) -> attrs.put(attribute, List.copyOf(values)));
+                final var sources = new LinkedHashMap<String, String>();
+                t.getSources().forEach((attribute, source) ->
+                    sources.put(attribute, source.type().descriptorString()));
+                bodies.add(new StoredTag(t.getTag(), attrs, List.copyOf(t.getChildren()), sources));
+                return bodies.size() - 1;
+            })));
+            return new StoredModel(hint.getTopElements(), tags, bodies);
+        }
+    }
+
+    /**
+     * @param tag     the name of the tag owning the body, null for types without one
+     * @param sources the descriptors of the types of factory attributes
+     */
+    record StoredTag(String tag, Map<String, List<String>> attrs, List<String> children,
+                     Map<String, String> sources) {
+    }
+}
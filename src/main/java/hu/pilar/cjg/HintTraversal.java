@@ -0,0 +1,277 @@
+package hu.pilar.cjg;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.pilar.cjg.ClassMetadata.AttributeDescriptor;
+import hu.pilar.cjg.IAttributeValueFactory.Attribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serial;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Work queue based traversal of the model classes. Runs in three phases, none
+ * of them recursive:
+ * <ol>
+ * <li>discovery: every class reachable from the roots is described exactly
+ * once, either from a queue on the calling thread or concurrently in a
+ * fork-join pool</li>
+ * <li>value lookup: the values of every attribute left to the
+ * {@link IAttributeValueFactory} are requested in a single batch</li>
+ * <li>resolution: the tags are built from the descriptions in breadth first
+ * order - first every tag with its attributes and overrides, then the
+ * children, and finally the renamed copies of {@code @XmlElement} children,
+ * when the tags they copy are already complete</li>
+ * </ol>
+ * Stack usage does not depend on the depth of the model and cycles need no
+ * special care.
+ */
+final class HintTraversal {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HintTraversal.class);
+
+    private final Map<Class<?>, ClassModel> models;
+    private final Map<Attribute, Set<String>> values;
+    private final Map<Class<?>, TagInfo> byClass = new HashMap<>();
+    private final ValueSets valueSets = new ValueSets();
+    /**
+     * Every tag in creation order with the class it was created for
+     */
+    private final List<Created> created = new ArrayList<>();
+
+    private HintTraversal(Map<Class<?>, ClassModel> models, Map<Attribute, Set<String>> values) {
+        this.models = models;
+        this.values = values;
+    }
+
+    /**
+     * Discovers and resolves every class reachable from the roots
+     *
+     * @param describer reflects over a single class
+     * @param lookup    returns the values of the attributes without fixed values
+     * @param pool      runs the discovery concurrently, null to run it on the calling thread
+     */
+    static HintTraversal run(Collection<Class<?>> roots, Function<Class<?>, ClassModel> describer,
+                             Function<Collection<Attribute>, Map<Attribute, Set<String>>> lookup,
+                             ForkJoinPool pool) {
+        final Map<Class<?>, ClassModel> models;
+        if (pool == null) {
+            models = new HashMap<>();
+            final Deque<Class<?>> queue = new ArrayDeque<>(roots);
+            while (!queue.isEmpty()) {
+                final var c = queue.poll();
+                if (!models.containsKey(c)) {
+                    final var model = describer.apply(c);
+                    models.put(c, model);
+                    queue.addAll(model.references());
+                }
+            }
+        } else {
+            models = new ConcurrentHashMap<>();
+            pool.invoke(new Discovery(null, roots, describer, models, ConcurrentHashMap.newKeySet()));
+        }
+        LOG.debug("Discovered {} classes for {} root(s)", models.size(), roots.size());
+        final var open = new LinkedHashSet<Attribute>();
+        for (ClassModel model : models.values()) {
+            for (AttributeDescriptor attribute : model.attributes()) {
+                if (attribute.values() == null) {
+                    open.add(attribute.toAttribute());
+                }
+            }
+        }
+        final Map<Attribute, Set<String>> values = open.isEmpty() ? Map.of() : lookup.apply(open);
+        final var traversal = new HintTraversal(models, values);
+        traversal.resolve(traversal.reachable(roots));
+        return traversal;
+    }
+
+    int getClassCount() {
+        return byClass.size();
+    }
+
+    int getTagCount() {
+        return created.size();
+    }
+
+    /**
+     * Projects the hints of a single root from the resolved graph. Tags are
+     * added in creation order: the tags of the classes first, then the
+     * renamed {@code @XmlElement} children. A later tag with the same name
+     * wins, so a renamed child replaces a root element of the same name.
+     * The recursive generator this replaced kept whichever tag it visited
+     * last, and that depended on the order of {@link Class#getMethods()}.
+     *
+     * @return null if the root is not a root element
+     */
+    XmlHint project(ObjectMapper mapper, IGenerationListener listener, Class<?> root) {
+        final var t = byClass.get(root);
+        if (t == null || t.getTag() == null) {
+            return null;
+        }
+        final var order = reachable(List.of(root));
+        final var reachable = new HashSet<>(order);
+        final var classNames = new LinkedHashSet<String>();
+        for (Class<?> c : order) {
+            classNames.add(c.getName());
+            ClassMetadata.get(c).getDependencies().forEach(d -> classNames.add(d.getName()));
+        }
+        final var hint = new XmlHint(mapper, listener, List.copyOf(classNames));
+        hint.addTag(t, true);
+        for (Created c : created) {
+            if (c.tag().getTag() != null && reachable.contains(c.owner())) {
+                hint.addTag(c.tag());
+            }
+        }
+        return hint;
+    }
+
+    /**
+     * The classes reachable from the roots in breadth first order
+     */
+    private List<Class<?>> reachable(Collection<Class<?>> roots) {
+        final var order = new ArrayList<Class<?>>();
+        final var seen = new HashSet<Class<?>>();
+        final Deque<Class<?>> queue = new ArrayDeque<>(roots);
+        while (!queue.isEmpty()) {
+            final var c = queue.poll();
+            if (seen.add(c)) {
+                order.add(c);
+                queue.addAll(models.get(c).references());
+            }
+        }
+        return order;
+    }
+
+    private void resolve(List<Class<?>> order) {
+        for (Class<?> c : order) {
+            final var model = models.get(c);
+            final var t = new TagInfo(model.tag());
+            LOG.debug("Adding attributes for class {} for tag {}", c.getSimpleName(), t.getTag());
+            for (AttributeDescriptor attribute : model.attributes()) {
+                final var values = valueSets.intern(valuesOf(attribute));
+                if (attribute.values() == null) {
+                    t.withAttribute(attribute.name(), values, attribute.toAttribute());
+                } else {
+                    t.withAttribute(attribute.name(), values);
+                }
+            }
+            for (Class<?> subclass : model.subclasses()) {
+                final var tag = models.get(subclass).tag();
+                if (tag != null) {
+                    t.getOverrides().add(tag);
+                }
+            }
+            byClass.put(c, t);
+            created.add(new Created(c, t));
+        }
+        final var aliases = new ArrayList<Created>();
+        for (Class<?> c : order) {
+            final var t = byClass.get(c);
+            LOG.debug("Adding child nodes for class {} for tag {}", c.getSimpleName(), t.getTag());
+            for (ChildModel child : models.get(c).children()) {
+                final var target = byClass.get(child.type());
+                if (child.elementName() == null) {
+                    t.withChild(target);
+                } else {
+                    // shares the children of the target, including the ones added later in this loop
+                    final var alias = TagInfo.alias(child.elementName(), target);
+                    t.withChild(alias);
+                    aliases.add(new Created(c, alias));
+                }
+            }
+        }
+        created.addAll(aliases);
+        LOG.debug("Resolved {} tags sharing {} distinct value sets", created.size(), valueSets.size());
+    }
+
+    private Set<String> valuesOf(AttributeDescriptor attribute) {
+        if (attribute.values() != null) {
+            return attribute.values();
+        }
+        final var found = values.get(attribute.toAttribute());
+        return found != null ? found : Set.of();
+    }
+
+    /**
+     * Describes the classes reachable from the given ones concurrently, each
+     * class is claimed by exactly one task. Serializable only because every
+     * ForkJoinTask is, it is never serialized.
+     */
+    private static final class Discovery extends CountedCompleter<Void> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final transient Collection<Class<?>> types;
+        private final transient Function<Class<?>, ClassModel> describer;
+        private final transient Map<Class<?>, ClassModel> models;
+        private final transient Set<Class<?>> claimed;
+
+        private Discovery(Discovery parent, Collection<Class<?>> types, Function<Class<?>, ClassModel> describer,
+                          Map<Class<?>, ClassModel> models, Set<Class<?>> claimed) {
+            super(parent);
+            this.types = types;
+            this.describer = describer;
+            this.models = models;
+            this.claimed = claimed;
+        }
+
+        @Override
+        public void compute() {
+            for (Class<?> c : types) {
+                if (!claimed.add(c)) {
+                    continue;
+                }
+                final var model = describer.apply(c);
+                models.put(c, model);
+                final var next = model.references();
+                if (!next.isEmpty()) {
+                    addToPendingCount(1);
+                    new Discovery(this, next, describer, models, claimed).fork();
+                }
+            }
+            tryComplete();
+        }
+    }
+
+    /**
+     * Reflection data of a single class
+     *
+     * @param tag        the root element name or null if it is not a root element
+     * @param attributes the attribute declarations
+     * @param subclasses the classes extending this one
+     * @param children   the child element declarations in method order
+     */
+    record ClassModel(String tag, List<AttributeDescriptor> attributes, List<Class<?>> subclasses,
+                      List<ChildModel> children) {
+
+        /**
+         * All the classes this one leads the traversal to
+         */
+        List<Class<?>> references() {
+            final var references = new ArrayList<Class<?>>(subclasses);
+            children.forEach(child -> references.add(child.type()));
+            return references;
+        }
+    }
+
+    /**
+     * @param elementName the name given in {@code @XmlElement}, null for {@code @XmlElementRef}
+     */
+    record ChildModel(Class<?> type, String elementName) {
+    }
+
+    private record Created(Class<?> owner, TagInfo tag) {
+    }
+}
@@ -1,6 +1,10 @@
 package hu.pilar.cjg;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface to add additional customization to the attribute value handling
@@ -17,4 +21,41 @@ public interface IAttributeValueFactory {
      * @param type the java type returned by the getter method for the attribute
      */
     Set<String> getValuesFor(String attributeName, Class<?> type);
+
+    /**
+     * Returns the value sets of every attribute of a generation in one call.
+     * The generator calls this once per generation with all the distinct
+     * attributes it discovered, override it to look the values up in a single
+     * round trip. By default calls {@link #getValuesFor(String, Class)} for
+     * each attribute.
+     *
+     * @return the values by attribute, missing or null values mean no values
+     */
+    default Map<Attribute, Set<String>> getValuesFor(Collection<Attribute> attributes) {
+        final var values = new HashMap<Attribute, Set<String>>();
+        for (Attribute attribute : attributes) {
+            values.put(attribute, getValuesFor(attribute.name(), attribute.type()));
+        }
+        return values;
+    }
+
+    /**
+     * Asynchronous variant of {@link #getValuesFor(Collection)}, this is the
+     * method the generator calls. Override it to resolve the values
+     * concurrently, the generator waits for the returned future before it
+     * builds the tags. By default completes with the result of the batch
+     * method on the calling thread.
+     */
+    default CompletableFuture<Map<Attribute, Set<String>>> getValuesForAsync(Collection<Attribute> attributes) {
+        return CompletableFuture.completedFuture(getValuesFor(attributes));
+    }
+
+    /**
+     * An attribute whose values are up to the factory
+     *
+     * @param name the name of the attribute in the XML schema
+     * @param type the java type returned by the getter method
+     */
+    record Attribute(String name, Class<?> type) {
+    }
 }
@@ -0,0 +1,54 @@
+package hu.pilar.cjg;
+
+import java.util.Collection;
+
+/**
+ * Receives the timings and counts of the phases of hint generation, e.g. to
+ * feed a metrics library. Every method does nothing by default. Discovery
+ * may run concurrently in a fork-join pool (see
+ * {@link HintGenerator#setForkJoinPool}), implementations must be
+ * thread-safe. The same data is recorded as JDK Flight Recorder events in
+ * the {@code codemirror-jaxb} category.
+ */
+public interface IGenerationListener {
+
+    /**
+     * The {@link ISubclassFinder} was asked for the subclasses of a class
+     *
+     * @param found the number of subclasses returned
+     */
+    default void subclassLookup(Class<?> parent, int found, long nanos) {
+    }
+
+    /**
+     * The JAXB annotations of a class were read, this is a cache lookup after
+     * the first generation that reaches the class
+     */
+    default void classDescribed(Class<?> type, long nanos) {
+    }
+
+    /**
+     * The {@link IAttributeValueFactory} returned the values of a generation
+     *
+     * @param attributes the number of attributes asked for in the batch
+     */
+    default void valuesResolved(int attributes, long nanos) {
+    }
+
+    /**
+     * A generation finished, including every phase above
+     *
+     * @param classes the number of classes reached from the roots
+     * @param tags    the number of tags created
+     */
+    default void generated(Collection<Class<?>> roots, int classes, int tags, long nanos) {
+    }
+
+    /**
+     * A hint was serialized
+     *
+     * @param size the number of bytes written, characters when written to a {@link java.io.Writer}
+     */
+    default void serialized(XmlHint hint, long size, long nanos) {
+    }
+}
@@ -1,6 +1,7 @@
 package hu.pilar.cjg;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface to find subclasses of a given class
@@ -14,4 +15,13 @@ public interface ISubclassFinder {
      * Returns all the subclasses that extend the parameter parent class.
      */
     <T> Set<Class<? extends T>> findClassesThatExtend(Class<T> parent);
+
+    /**
+     * Completes when lookups no longer wait for the finder to set itself up,
+     * e.g. for a classpath scan running in the background. Completes
+     * exceptionally if the set up failed.
+     */
+    default CompletableFuture<Void> ready() {
+        return CompletableFuture.completedFuture(null);
+    }
 }
@@ -0,0 +1,111 @@
+package hu.pilar.cjg;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Subclass finder backed by the subtype index written at build time by
+ * {@link RecordingSubclassFinder} (see {@link HintResourceWriter}). Loading
+ * the index only streams a small binary file instead of scanning the
+ * classpath, lookups are answered from int tables. Parent classes missing
+ * from the index, e.g. because the index is stale, are looked up with the
+ * fallback finder if there is one. Without a fallback they are reported as
+ * having no subclasses, with a warning logged once per class.
+ */
+public class IndexedSubclassFinder implements ISubclassFinder {
+
+    /**
+     * Classpath location of the index
+     */
+    public static final String INDEX = PrecomputedHints.LOCATION + "subtypes.idx";
+    private static final Logger LOG = LoggerFactory.getLogger(IndexedSubclassFinder.class);
+
+    private final ClassLoader classLoader;
+    private final List<SubtypeIndex> indexes;
+    private final ISubclassFinder fallback;
+    private final Set<String> unindexed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Loads every index found on the classpath of the context class loader
+     */
+    public IndexedSubclassFinder() {
+        this(Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * Loads every index found on the classpath of the given class loader
+     */
+    public IndexedSubclassFinder(ClassLoader classLoader) {
+        this(classLoader, null);
+    }
+
+    /**
+     * Loads every index found on the classpath of the given class loader
+     *
+     * @param fallback looks up the parent classes missing from the index, may be null
+     */
+    public IndexedSubclassFinder(ClassLoader classLoader, ISubclassFinder fallback) {
+        this.classLoader = classLoader;
+        this.fallback = fallback;
+        final var found = new ArrayList<SubtypeIndex>();
+        try {
+            for (URL url : Collections.list(classLoader.getResources(INDEX))) {
+                LOG.debug("Loading subtype index from {}", url);
+                try (InputStream in = url.openStream()) {
+                    found.add(SubtypeIndex.read(in));
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not load subtype index", ex);
+        }
+        if (found.isEmpty()) {
+            LOG.warn("No subtype index found on the classpath at {}", INDEX);
+        }
+        this.indexes = List.copyOf(found);
+    }
+
+    @Override
+    public <T> Set<Class<? extends T>> findClassesThatExtend(Class<T> parent) {
+        LOG.debug("Looking up subtypes for {}", parent.getSimpleName());
+        final var name = parent.getName();
+        if (!isIndexed(parent)) {
+            if (fallback != null) {
+                return fallback.findClassesThatExtend(parent);
+            }
+            if (unindexed.add(name)) {
+                LOG.warn("{} is not in the subtype index, its subclasses are left out", name);
+            }
+            return Set.of();
+        }
+        final var result = new HashSet<Class<? extends T>>();
+        for (SubtypeIndex index : indexes) {
+            for (int subtype : index.subtypesOf(name)) {
+                final var subtypeName = index.name(subtype);
+                try {
+                    result.add(Class.forName(subtypeName, false, classLoader).asSubclass(parent));
+                } catch (ClassNotFoundException | ClassCastException ex) {
+                    LOG.warn("Indexed subtype {} of {} is not available: {}", subtypeName, name, ex.toString());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true if any of the loaded indexes has recorded the subtypes of the given class
+     */
+    public boolean isIndexed(Class<?> parent) {
+        return indexes.stream().anyMatch(index -> index.contains(parent.getName()));
+    }
+}
@@ -0,0 +1,56 @@
+package hu.pilar.cjg;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads the hints written at build time by {@link HintResourceWriter} from the
+ * classpath. No reflection or classpath scanning takes place, the resources
+ * are served as they were generated.
+ */
+public final class PrecomputedHints {
+
+    /**
+     * Classpath folder of the generated resources
+     */
+    public static final String LOCATION = "META-INF/codemirror-jaxb/";
+    static final String JS_SUFFIX = ".js";
+    static final String JSON_SUFFIX = ".json";
+
+    private PrecomputedHints() {
+    }
+
+    /**
+     * Returns the {@code var tags = ...} javascript generated for the root class
+     */
+    public static Optional<byte[]> getJsFor(Class<?> root) {
+        return read(root.getClassLoader(), root.getName() + JS_SUFFIX);
+    }
+
+    /**
+     * Returns the plain json object generated for the root class
+     */
+    public static Optional<byte[]> getJsonFor(Class<?> root) {
+        return read(root.getClassLoader(), root.getName() + JSON_SUFFIX);
+    }
+
+    /**
+     * Returns the javascript generated for the root class as a string
+     */
+    public static Optional<String> getJsStringFor(Class<?> root) {
+        return getJsFor(root).map(bytes -> new String(bytes, UTF_8));
+    }
+
+    static Optional<byte[]> read(ClassLoader classLoader, String name) {
+        final var loader = classLoader != null ? classLoader : ClassLoader.getSystemClassLoader();
+        try (InputStream in = loader.getResourceAsStream(LOCATION + name)) {
+            return in == null ? Optional.empty() : Optional.of(in.readAllBytes());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read precomputed hints " + name, ex);
+        }
+    }
+}
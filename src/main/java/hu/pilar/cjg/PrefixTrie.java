@@ -0,0 +1,110 @@
+package hu.pilar.cjg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable trie of a set of words, answering which words start with a given
+ * prefix in time proportional to the length of the prefix and the number of
+ * matches. The children of each node are kept in sorted arrays for binary
+ * search, the matches are returned in the order the words were given, as
+ * that order is the order of the completion list.
+ */
+final class PrefixTrie {
+
+    private static final PrefixTrie EMPTY = new PrefixTrie(new char[0], new PrefixTrie[0], null, -1);
+
+    private final char[] keys;
+    private final PrefixTrie[] children;
+    /**
+     * The word ending at this node, null if no word does
+     */
+    private final String word;
+    /**
+     * The position of the word in the original order
+     */
+    private final int rank;
+
+    private PrefixTrie(char[] keys, PrefixTrie[] children, String word, int rank) {
+        this.keys = keys;
+        this.children = children;
+        this.word = word;
+        this.rank = rank;
+    }
+
+    static PrefixTrie of(Collection<String> words) {
+        if (words.isEmpty()) {
+            return EMPTY;
+        }
+        final var ranks = new HashMap<String, Integer>();
+        for (String w : words) {
+            ranks.putIfAbsent(w, ranks.size());
+        }
+        final var sorted = ranks.keySet().stream().sorted().toArray(String[]::new);
+        return build(sorted, ranks, 0, sorted.length, 0);
+    }
+
+    /**
+     * Builds the node of the words in [from, to), all sharing their first
+     * depth characters
+     */
+    private static PrefixTrie build(String[] words, Map<String, Integer> ranks, int from, int to, int depth) {
+        String word = null;
+        if (words[from].length() == depth) {
+            word = words[from++];
+        }
+        final var keys = new ArrayList<Character>();
+        final var children = new ArrayList<PrefixTrie>();
+        while (from < to) {
+            final char c = words[from].charAt(depth);
+            int end = from + 1;
+            while (end < to && words[end].charAt(depth) == c) {
+                end++;
+            }
+            keys.add(c);
+            children.add(build(words, ranks, from, end, depth + 1));
+            from = end;
+        }
+        final var k = new char[keys.size()];
+        for (int i = 0; i < k.length; i++) {
+            k[i] = keys.get(i);
+        }
+        return new PrefixTrie(k, children.toArray(PrefixTrie[]::new), word, word == null ? -1 : ranks.get(word));
+    }
+
+    /**
+     * The words starting with the prefix in their original order
+     */
+    List<String> withPrefix(CharSequence prefix) {
+        var node = this;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            final int at = Arrays.binarySearch(node.keys, prefix.charAt(i));
+            node = at >= 0 ? node.children[at] : null;
+        }
+        if (node == null) {
+            return List.of();
+        }
+        final var found = new ArrayList<PrefixTrie>();
+        node.collect(found);
+        found.sort(Comparator.comparingInt(n -> n.rank));
+        final var result = new ArrayList<String>(found.size());
+        for (PrefixTrie n : found) {
+            result.add(n.word);
+        }
+        return result;
+    }
+
+    private void collect(List<PrefixTrie> result) {
+        if (word != null) {
+            result.add(this);
+        }
+        for (PrefixTrie child : children) {
+            child.collect(result);
+        }
+    }
+}
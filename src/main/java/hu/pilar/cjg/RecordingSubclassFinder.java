@@ -0,0 +1,61 @@
+package hu.pilar.cjg;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.stream.Collectors.toCollection;
+
+/**
+ * Delegating subclass finder that remembers every answer of the wrapped
+ * finder, so that the lookups done while generating hints can be written as
+ * a subtype index for the {@link IndexedSubclassFinder}.
+ */
+public class RecordingSubclassFinder implements ISubclassFinder {
+
+    private final ISubclassFinder delegate;
+    private final Map<String, Set<String>> recorded = new TreeMap<>();
+
+    public RecordingSubclassFinder(ISubclassFinder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public <T> Set<Class<? extends T>> findClassesThatExtend(Class<T> parent) {
+        final var result = delegate.findClassesThatExtend(parent);
+        final var names = result.stream().map(Class::getName).collect(toCollection(TreeSet::new));
+        synchronized (recorded) {
+            recorded.put(parent.getName(), names);
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Void> ready() {
+        return delegate.ready();
+    }
+
+    public void writeIndex(OutputStream out) throws IOException {
+        synchronized (recorded) {
+            SubtypeIndex.write(recorded, out);
+        }
+    }
+
+    /**
+     * Writes the index into its classpath location beneath the given
+     * output directory
+     */
+    public void writeIndex(Path outputDirectory) throws IOException {
+        final var file = outputDirectory.resolve(IndexedSubclassFinder.INDEX);
+        Files.createDirectories(file.getParent());
+        try (OutputStream out = Files.newOutputStream(file)) {
+            writeIndex(out);
+        }
+    }
+}
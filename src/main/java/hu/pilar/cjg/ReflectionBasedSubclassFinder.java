@@ -2,6 +2,7 @@ package hu.pilar.cjg;
 
 import org.reflections.Reflections;
 import org.reflections.scanners.Scanners;
+import org.reflections.util.ClasspathHelper;
 import org.reflections.util.ConfigurationBuilder;
 import org.reflections.util.FilterBuilder;
 import org.slf4j.Logger;
@@ -9,8 +10,17 @@ import org.slf4j.LoggerFactory;
 
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 import static java.util.stream.Collectors.toList;
 import static org.reflections.util.ClasspathHelper.forClassLoader;
@@ -19,29 +29,170 @@ import static org.reflections.util.ClasspathHelper.forJavaClassPath;
 public class ReflectionBasedSubclassFinder implements ISubclassFinder {
 
     private static final Logger LOG = LoggerFactory.getLogger(ReflectionBasedSubclassFinder.class);
-    private final Reflections reflections;
+    /**
+     * Completed by the scan, which runs in the background for the whole
+     * classpath
+     */
+    private final CompletableFuture<Reflections> reflections;
 
+    /**
+     * Starts scanning the whole classpath on a virtual thread and returns
+     * without waiting for it, lookups wait for the scan when first made.
+     * See {@link #ready()}.
+     */
     ReflectionBasedSubclassFinder() {
+        this(ReflectionBasedSubclassFinder::scanClasspath);
+    }
+
+    /**
+     * Runs the given scan on a virtual thread, a failure of the scan is
+     * thrown by the lookups
+     */
+    ReflectionBasedSubclassFinder(Supplier<Reflections> scan) {
+        reflections = new CompletableFuture<>();
+        Thread.ofVirtual().name("codemirror-jaxb-scan").start(() -> {
+            try {
+                reflections.complete(scan.get());
+            } catch (RuntimeException | Error ex) {
+                LOG.error("Scanning the classpath failed", ex);
+                reflections.completeExceptionally(ex);
+            }
+        });
+    }
+
+    private static Reflections scanClasspath() {
         LOG.info("Setting up reflection cache");
         final var urls = new ArrayList<URL>();
         urls.addAll(forJavaClassPath());
         urls.addAll(forClassLoader());
-        reflections = new Reflections(new ConfigurationBuilder().
+        final long start = System.nanoTime();
+        final var scanned = new Reflections(new ConfigurationBuilder().
             setUrls(urls.stream().filter(Objects::nonNull)
                 .collect(toList())).
             filterInputsBy(new FilterBuilder()
                 .includePattern(".*"))
-            .setScanners(Scanners.SubTypes));
+            .setScanners(Scanners.SubTypes)
+            .setParallel(true));
+        logStatistics(scanned, start);
+        return scanned;
     }
 
     public ReflectionBasedSubclassFinder(Reflections reflections) {
-        this.reflections = reflections;
+        this.reflections = CompletableFuture.completedFuture(reflections);
+    }
+
+    /**
+     * Scans only the classpath entries and classes beneath the given package
+     * prefixes, the entries are scanned in parallel.
+     */
+    public ReflectionBasedSubclassFinder(String... packagePrefixes) {
+        LOG.info("Setting up reflection cache for packages {}", Arrays.toString(packagePrefixes));
+        final var urls = new LinkedHashSet<URL>();
+        final var filter = new FilterBuilder();
+        for (String prefix : packagePrefixes) {
+            urls.addAll(ClasspathHelper.forPackage(prefix));
+            filter.includePackage(prefix);
+        }
+        final long start = System.nanoTime();
+        final var scanned = new Reflections(new ConfigurationBuilder()
+            .setUrls(urls)
+            .filterInputsBy(filter)
+            .setScanners(Scanners.SubTypes)
+            .setParallel(true));
+        logStatistics(scanned, start);
+        reflections = CompletableFuture.completedFuture(scanned);
+    }
+
+    /**
+     * Scans only the packages of the model classes reachable from the given
+     * JAXB root classes (see {@link ClosedWorldSubclassFinder}), the
+     * classpath entries are scanned in parallel.
+     */
+    public ReflectionBasedSubclassFinder(Class<?>... rootClasses) {
+        this(packagePrefixesOf(new ClosedWorldSubclassFinder(rootClasses).getClasses()));
+    }
+
+    /**
+     * Returns the smallest set of package prefixes covering the packages of
+     * the given classes.
+     */
+    static String[] packagePrefixesOf(Collection<Class<?>> classes) {
+        final var packages = new TreeSet<String>();
+        for (Class<?> c : classes) {
+            if (!c.getPackageName().isEmpty()) {
+                packages.add(c.getPackageName());
+            }
+        }
+        final var prefixes = new ArrayList<String>();
+        for (String p : packages) {
+            // sorted order puts every package right after its covering prefix
+            if (prefixes.isEmpty() || !p.startsWith(prefixes.get(prefixes.size() - 1) + ".")) {
+                prefixes.add(p);
+            }
+        }
+        return prefixes.toArray(String[]::new);
+    }
+
+    /**
+     * Number of classpath entries (jars, folders) that were scanned
+     */
+    public int getScannedUrlCount() {
+        return getScannedUrlCount(reflections());
+    }
+
+    /**
+     * Number of distinct types recorded in the subtype store
+     */
+    public int getScannedClassCount() {
+        return getScannedClassCount(reflections());
+    }
+
+    private static int getScannedUrlCount(Reflections reflections) {
+        return reflections.getConfiguration().getUrls().size();
+    }
+
+    private static int getScannedClassCount(Reflections reflections) {
+        final Map<String, Set<String>> subTypes = reflections.getStore()
+            .getOrDefault(Scanners.SubTypes.index(), Map.of());
+        final var types = new HashSet<>(subTypes.keySet());
+        subTypes.values().forEach(types::addAll);
+        return types.size();
     }
 
     @Override
     public <T> Set<Class<? extends T>> findClassesThatExtend(Class<T> parent) {
         LOG.debug("Looking up subtypes for {}", parent.getSimpleName());
-        return reflections.getSubTypesOf(parent);
+        return reflections().getSubTypesOf(parent);
     }
 
+    /**
+     * Completes when the classpath scan has finished
+     */
+    @Override
+    public CompletableFuture<Void> ready() {
+        return reflections.thenAccept(r -> {
+        });
+    }
+
+    /**
+     * Waits for the scan if it is still running
+     */
+    private Reflections reflections() {
+        try {
+            return reflections.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (ex.getCause() instanceof Error e) {
+                throw e;
+            }
+            throw ex;
+        }
+    }
+
+    private static void logStatistics(Reflections reflections, long start) {
+        LOG.info("Scanned {} classpath entries and {} types in {} ms", getScannedUrlCount(reflections),
+            getScannedClassCount(reflections), (System.nanoTime() - start) / 1_000_000);
+    }
 }
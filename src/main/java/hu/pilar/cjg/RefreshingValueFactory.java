@@ -0,0 +1,161 @@
+package hu.pilar.cjg;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Caching {@link IAttributeValueFactory} for value sets that change over
+ * time. Values are kept for a time to live and refreshed ahead in the
+ * background, every half of the time to live, in a single batch for all the
+ * attributes seen so far - generations are answered from the cache and only
+ * wait for the delegate when an attribute is new or its values expired
+ * because the refreshes failed.
+ * <p>
+ * Listeners are told which value sets changed after each refresh, so that
+ * already generated hints can be patched instead of regenerated:
+ * <pre>
+ * factory.addListener(changed -&gt; cache.refreshValues(factory, changed));
+ * </pre>
+ */
+public final class RefreshingValueFactory implements IAttributeValueFactory, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RefreshingValueFactory.class);
+
+    private final IAttributeValueFactory delegate;
+    private final long ttlNanos;
+    private final Map<Attribute, Cached> cache = new ConcurrentHashMap<>();
+    private final List<Consumer<Map<Attribute, Set<String>>>> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledFuture<?> refresher;
+
+    /**
+     * @param delegate  loads the values, asked in batches
+     * @param ttl       how long loaded values may be used
+     * @param scheduler runs the background refreshes, not shut down by {@link #close()}
+     */
+    public RefreshingValueFactory(IAttributeValueFactory delegate, Duration ttl, ScheduledExecutorService scheduler) {
+        if (ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must be positive: " + ttl);
+        }
+        this.delegate = delegate;
+        this.ttlNanos = ttl.toNanos();
+        final var period = Math.max(1, ttlNanos / 2);
+        this.refresher = scheduler.scheduleWithFixedDelay(this::refreshQuietly, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Called with the new value sets of the attributes whose values changed,
+     * on the thread running the refresh
+     */
+    public void addListener(Consumer<Map<Attribute, Set<String>>> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public Set<String> getValuesFor(String attributeName, Class<?> type) {
+        final var attribute = new Attribute(attributeName, type);
+        return getValuesFor(List.of(attribute)).get(attribute);
+    }
+
+    @Override
+    public Map<Attribute, Set<String>> getValuesFor(Collection<Attribute> attributes) {
+        return getValuesForAsync(attributes).join();
+    }
+
+    @Override
+    public CompletableFuture<Map<Attribute, Set<String>>> getValuesForAsync(Collection<Attribute> attributes) {
+        final var now = System.nanoTime();
+        final var result = new HashMap<Attribute, Set<String>>();
+        final var missing = new ArrayList<Attribute>();
+        for (Attribute attribute : attributes) {
+            final var cached = cache.get(attribute);
+            if (cached != null && now - cached.loaded() < ttlNanos) {
+                result.put(attribute, cached.values());
+            } else {
+                missing.add(attribute);
+            }
+        }
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
+        }
+        LOG.debug("Loading values of {} attributes", missing.size());
+        return delegate.getValuesForAsync(missing).thenApply(loaded -> {
+            final var at = System.nanoTime();
+            for (Attribute attribute : missing) {
+                final var values = valuesOf(loaded, attribute);
+                cache.put(attribute, new Cached(values, at));
+                result.put(attribute, values);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Reloads every cached attribute in one batch and notifies the listeners
+     * about the changed ones
+     *
+     * @return the new value sets of the changed attributes
+     */
+    public CompletableFuture<Map<Attribute, Set<String>>> refresh() {
+        final var attributes = List.copyOf(cache.keySet());
+        if (attributes.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        return delegate.getValuesForAsync(attributes).thenApply(loaded -> {
+            final var at = System.nanoTime();
+            final var changed = new HashMap<Attribute, Set<String>>();
+            for (Attribute attribute : attributes) {
+                final var values = valuesOf(loaded, attribute);
+                final var previous = cache.put(attribute, new Cached(values, at));
+                if (previous == null || !Objects.equals(List.copyOf(previous.values()), List.copyOf(values))) {
+                    changed.put(attribute, values);
+                }
+            }
+            LOG.debug("Refreshed {} attributes, {} changed", attributes.size(), changed.size());
+            if (!changed.isEmpty()) {
+                listeners.forEach(l -> l.accept(changed));
+            }
+            return changed;
+        });
+    }
+
+    /**
+     * Stops the background refreshes
+     */
+    @Override
+    public void close() {
+        refresher.cancel(false);
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh().join();
+        } catch (RuntimeException ex) {
+            // keep the schedule alive, the values expire if this keeps failing
+            LOG.warn("Could not refresh attribute values", ex);
+        }
+    }
+
+    private static Set<String> valuesOf(Map<Attribute, Set<String>> loaded, Attribute attribute) {
+        final var values = loaded != null ? loaded.get(attribute) : null;
+        return values != null ? values : Set.of();
+    }
+
+    private record Cached(Set<String> values, long loaded) {
+    }
+}
@@ -0,0 +1,185 @@
+package hu.pilar.cjg;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Splits a {@link XmlHint} into chunks, so that editors load only the part of
+ * a large schema that is actually edited. The tags are ordered breadth first
+ * from the top elements and cut into chunks of a fixed size, so each chunk
+ * holds a neighbourhood of the tree. The first chunk is embedded into the
+ * index script together with a small tag to chunk table and a loader that
+ * fetches the other chunks on demand:
+ * <pre>
+ * &lt;script src="hints/index.js"&gt;&lt;/script&gt;
+ * tagsLoader.watch(editor); // loads the chunks as the cursor enters tags
+ * </pre>
+ * The loader merges every chunk into the same {@code tags} object the
+ * codemirror xml hint addon reads.
+ */
+public final class ShardedHints {
+
+    public static final String INDEX = "index.js";
+    public static final String CHUNK_SUFFIX = ".json";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShardedHints.class);
+
+    private static final String LOADER =
+        "var tagsLoader = (function (chunkOf, url) {\n"
+            + "var pending = {};\n"
+            + "function load(tag) {\n"
+            + "  var id = chunkOf[tag];\n"
+            + "  if (id === undefined) {\n"
+            + "    return Promise.resolve(tags);\n"
+            + "  }\n"
+            + "  if (!pending[id]) {\n"
+            + "    pending[id] = fetch(url + id + \"" + CHUNK_SUFFIX + "\")\n"
+            + "      .then(function (r) { return r.json(); })\n"
+            + "      .then(function (chunk) {\n"
+            + "        for (var name in chunk) {\n"
+            + "          tags[name] = chunk[name];\n"
+            + "          delete chunkOf[name];\n"
+            + "        }\n"
+            + "        return tags;\n"
+            + "      }, function (e) {\n"
+            + "        delete pending[id];\n"
+            + "        throw e;\n"
+            + "      });\n"
+            + "  }\n"
+            + "  return pending[id];\n"
+            + "}\n"
+            + "function loadWithChildren(tag) {\n"
+            + "  return load(tag).then(function () {\n"
+            + "    var children = tags[tag] ? tags[tag].children : [];\n"
+            + "    return Promise.all(children.map(load));\n"
+            + "  });\n"
+            + "}\n"
+            + "function watch(cm) {\n"
+            + "  cm.on(\"cursorActivity\", function () {\n"
+            + "    var state = CodeMirror.innerMode(cm.getMode(), cm.getTokenAt(cm.getCursor()).state).state;\n"
+            + "    var tag = state.tagName || (state.context && state.context.tagName);\n"
+            + "    if (tag) {\n"
+            + "      loadWithChildren(tag);\n"
+            + "    }\n"
+            + "  });\n"
+            + "}\n"
+            + "return {load: loadWithChildren, watch: watch};\n"
+            + "})(";
+
+    private final ObjectMapper mapper;
+    private final XmlHint hint;
+    private final List<Map<String, TagInfo>> chunks;
+
+    private ShardedHints(ObjectMapper mapper, XmlHint hint, List<Map<String, TagInfo>> chunks) {
+        this.mapper = mapper;
+        this.hint = hint;
+        this.chunks = chunks;
+    }
+
+    /**
+     * @param chunkSize the maximum number of tags in a chunk
+     */
+    public static ShardedHints of(XmlHint hint, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        final var tags = hint.getAny();
+        final var order = new LinkedHashMap<String, TagInfo>();
+        final Deque<String> queue = new ArrayDeque<>(hint.getTopElements());
+        while (!queue.isEmpty()) {
+            final var name = queue.poll();
+            final var tag = tags.get(name);
+            if (tag != null && order.putIfAbsent(name, tag) == null) {
+                queue.addAll(tag.getChildren());
+            }
+        }
+        // tags only reachable as overrides, keep them rather than lose them
+        tags.forEach(order::putIfAbsent);
+        final var chunks = new ArrayList<Map<String, TagInfo>>();
+        Map<String, TagInfo> chunk = null;
+        for (var e : order.entrySet()) {
+            if (chunk == null || chunk.size() == chunkSize) {
+                chunk = new TreeMap<>();
+                chunks.add(chunk);
+            }
+            chunk.put(e.getKey(), e.getValue());
+        }
+        LOG.debug("Split {} tags into {} chunks", order.size(), chunks.size());
+        return new ShardedHints(hint.getMapper(), hint, chunks);
+    }
+
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * The script defining the {@code tags} variable with the first chunk and
+     * the {@code tagsLoader} for the rest
+     *
+     * @param chunkUrl the url the chunk file names are appended to, e.g. {@code "/hints/"}
+     */
+    public String getIndexJs(String chunkUrl) {
+        final var first = new LinkedHashMap<String, Object>();
+        first.put("!top", hint.getTopElements());
+        first.put("!attrs", hint.getAttrs());
+        if (!chunks.isEmpty()) {
+            first.putAll(chunks.get(0));
+        }
+        final var chunkOf = new TreeMap<String, Integer>();
+        for (int i = 1; i < chunks.size(); i++) {
+            for (String name : chunks.get(i).keySet()) {
+                chunkOf.put(name, i);
+            }
+        }
+        try {
+            return "var tags = " + mapper.writeValueAsString(first) + ";\n"
+                + LOADER + mapper.writeValueAsString(chunkOf) + ", " + mapper.writeValueAsString(chunkUrl) + ");\n";
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException("Could not serialize hint index", ex);
+        }
+    }
+
+    /**
+     * The tags of a chunk as a json object, chunk 0 is part of the index
+     */
+    public String getChunkJson(int chunk) {
+        try {
+            return mapper.writeValueAsString(chunks.get(chunk));
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException("Could not serialize hint chunk " + chunk, ex);
+        }
+    }
+
+    public static String getChunkName(int chunk) {
+        return chunk + CHUNK_SUFFIX;
+    }
+
+    /**
+     * Writes the index and the chunk files into the directory
+     *
+     * @param chunkUrl the url the directory is served at
+     */
+    public void writeTo(Path outputDir, String chunkUrl) throws IOException {
+        Files.createDirectories(outputDir);
+        Files.writeString(outputDir.resolve(INDEX), getIndexJs(chunkUrl), UTF_8);
+        for (int i = 1; i < chunks.size(); i++) {
+            Files.writeString(outputDir.resolve(getChunkName(i)), getChunkJson(i), UTF_8);
+        }
+    }
+}
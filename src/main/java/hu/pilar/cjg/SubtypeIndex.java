@@ -0,0 +1,114 @@
+package hu.pilar.cjg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Compact binary subtype table. Every class name is stored once in a sorted
+ * string table, relations are stored as int indexes into that table:
+ * <pre>
+ * int magic, int version,
+ * int nameCount, nameCount x UTF name,
+ * int parentCount, parentCount x (int parent, int subtypeCount, subtypeCount x int subtype)
+ * </pre>
+ * Lookups binary search the parent name and return the subtype names
+ * through their indexes, no per-entry objects are kept.
+ */
+final class SubtypeIndex {
+
+    private static final int MAGIC = 0x434a5349; // CJSI
+    private static final int VERSION = 1;
+    private static final int[] NONE = new int[0];
+
+    private final String[] names;
+    /**
+     * Subtype name indexes by the name index of the parent, null if the
+     * parent is not in the index
+     */
+    private final int[][] subtypes;
+
+    private SubtypeIndex(String[] names, int[][] subtypes) {
+        this.names = names;
+        this.subtypes = subtypes;
+    }
+
+    static SubtypeIndex read(InputStream in) throws IOException {
+        final var data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a subtype index");
+        }
+        final int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported subtype index version " + version);
+        }
+        final var names = new String[data.readInt()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = data.readUTF();
+        }
+        final var subtypes = new int[names.length][];
+        final int parentCount = data.readInt();
+        for (int i = 0; i < parentCount; i++) {
+            final int parent = data.readInt();
+            final var children = new int[data.readInt()];
+            for (int j = 0; j < children.length; j++) {
+                children[j] = data.readInt();
+            }
+            subtypes[parent] = children.length == 0 ? NONE : children;
+        }
+        return new SubtypeIndex(names, subtypes);
+    }
+
+    /**
+     * Writes the parent to subtypes relation given by class names.
+     */
+    static void write(Map<String, ? extends Collection<String>> subtypesByParent, OutputStream out) throws IOException {
+        final var sorted = new TreeSet<>(subtypesByParent.keySet());
+        subtypesByParent.values().forEach(sorted::addAll);
+        final var names = sorted.toArray(String[]::new);
+        final var data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(names.length);
+        for (String name : names) {
+            data.writeUTF(name);
+        }
+        data.writeInt(subtypesByParent.size());
+        for (var e : subtypesByParent.entrySet()) {
+            data.writeInt(Arrays.binarySearch(names, e.getKey()));
+            data.writeInt(e.getValue().size());
+            for (String subtype : e.getValue()) {
+                data.writeInt(Arrays.binarySearch(names, subtype));
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * @return true if the subtypes of the parent were recorded in this index
+     */
+    boolean contains(String parent) {
+        final int i = Arrays.binarySearch(names, parent);
+        return i >= 0 && subtypes[i] != null;
+    }
+
+    /**
+     * Returns the name indexes of the subtypes of the given parent class
+     */
+    int[] subtypesOf(String parent) {
+        final int i = Arrays.binarySearch(names, parent);
+        return i < 0 || subtypes[i] == null ? NONE : subtypes[i];
+    }
+
+    String name(int index) {
+        return names[index];
+    }
+}
@@ -18,11 +18,13 @@ package hu.pilar.cjg;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import hu.pilar.cjg.IAttributeValueFactory.Attribute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * @author cserepj
@@ -34,25 +36,139 @@ class TagInfo {
     /**
      * All possible atribute values
      */
-    private final Map<String, Set<String>> attrs = new TreeMap<>();
+    private final Map<String, Set<String>> attrs;
     /**
      * What tags can be beneath this tag
      */
-    private final Set<String> children = new TreeSet<>();
+    private final Set<String> children;
     /**
      * What other tags may be used instead of this one
      */
-    private final Set<String> overrides = new HashSet<>();
+    private final Set<String> overrides;
+    /**
+     * The factory attribute each attribute got its values from, attributes
+     * with fixed values are not listed
+     */
+    private final Map<String, Attribute> sources;
+    /**
+     * Frozen tags hold immutable array backed collections, see {@link Freezer}
+     */
+    private final boolean frozen;
+    /**
+     * The tag whose collections this one shares, null if it has its own
+     */
+    private final TagInfo aliasOf;
 
     TagInfo(String tag) {
-        this.tag = tag;
+        this(tag, new TreeMap<>(), new TreeSet<>(), new HashSet<>(), new HashMap<>(), false, null);
     }
 
-    TagInfo(String tag, TagInfo clone) {
+    private TagInfo(String tag, Map<String, Set<String>> attrs, Set<String> children, Set<String> overrides,
+                    Map<String, Attribute> sources, boolean frozen, TagInfo aliasOf) {
         this.tag = tag;
-        this.children.addAll(clone.children);
-        this.attrs.putAll(clone.attrs);
-        this.overrides.addAll(clone.overrides);
+        this.attrs = attrs;
+        this.children = children;
+        this.overrides = overrides;
+        this.sources = sources;
+        this.frozen = frozen;
+        this.aliasOf = aliasOf;
+    }
+
+    /**
+     * A tag with another name sharing the attributes, children and overrides
+     * of the target, used for elements renamed by {@code @XmlElement}. Later
+     * changes of the target show through the alias.
+     */
+    static TagInfo alias(String tag, TagInfo target) {
+        final var body = target.getBody();
+        return new TagInfo(tag, body.attrs, body.children, body.overrides, body.sources, body.frozen, body);
+    }
+
+    /**
+     * An immutable copy of this tag, made by the freezer once per tag
+     */
+    TagInfo frozenCopy(Freezer freezer) {
+        if (aliasOf != null) {
+            return alias(freezer.string(tag), freezer.tag(aliasOf));
+        }
+        return new TagInfo(freezer.string(tag), SortedArrayMap.of(attrs, freezer, freezer::set),
+            freezer.set(children), freezer.sortedSet(overrides),
+            SortedArrayMap.of(new TreeMap<>(sources), freezer, a -> a), true, null);
+    }
+
+    /**
+     * Returns a copy without the attributes and children the predicates
+     * reject, or this tag if they keep everything. The copy is not frozen.
+     */
+    TagInfo filtered(Predicate<String> attribute, Predicate<String> child) {
+        if (attrs.keySet().stream().allMatch(attribute) && children.stream().allMatch(child)) {
+            return this;
+        }
+        final var copy = new TagInfo(tag);
+        attrs.forEach((name, values) -> {
+            if (attribute.test(name)) {
+                copy.attrs.put(name, values);
+                final var source = sources.get(name);
+                if (source != null) {
+                    copy.sources.put(name, source);
+                }
+            }
+        });
+        for (String name : children) {
+            if (child.test(name)) {
+                copy.children.add(name);
+            }
+        }
+        copy.overrides.addAll(overrides);
+        return copy;
+    }
+
+    /**
+     * The tag owning the collections: the target of an alias, or this tag
+     */
+    @JsonIgnore
+    TagInfo getBody() {
+        return aliasOf != null ? aliasOf : this;
+    }
+
+    @JsonIgnore
+    boolean isAlias() {
+        return aliasOf != null;
+    }
+
+    @JsonIgnore
+    boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Copies the attributes, children and overrides of another tag
+     */
+    void copyFrom(TagInfo other) {
+        this.children.addAll(other.children);
+        this.attrs.putAll(other.attrs);
+        this.overrides.addAll(other.overrides);
+        this.sources.putAll(other.sources);
+    }
+
+    /**
+     * Returns a copy with the values of the changed factory attributes
+     * replaced, or this tag if none of its attributes is affected. The copy
+     * is not frozen.
+     */
+    TagInfo withValues(Map<Attribute, Set<String>> changed, ValueSets valueSets) {
+        TagInfo patched = null;
+        for (Map.Entry<String, Attribute> source : sources.entrySet()) {
+            final var values = changed.get(source.getValue());
+            if (values != null) {
+                if (patched == null) {
+                    patched = new TagInfo(tag);
+                    patched.copyFrom(this);
+                }
+                patched.attrs.put(source.getKey(), valueSets.intern(values));
+            }
+        }
+        return patched != null ? patched : this;
     }
 
     @JsonIgnore
@@ -75,11 +191,24 @@ class TagInfo {
         return children;
     }
 
+    @JsonIgnore
+    Map<String, Attribute> getSources() {
+        return sources;
+    }
+
     void withAttribute(String name, Set<String> possibleValues) {
         LOG.debug("      Adding attribute {} to {}", name, this.tag);
         attrs.put(name, possibleValues);
     }
 
+    /**
+     * @param source the factory attribute the values came from
+     */
+    void withAttribute(String name, Set<String> possibleValues, @Nonnull Attribute source) {
+        withAttribute(name, possibleValues);
+        sources.put(name, source);
+    }
+
     void withChild(@Nonnull TagInfo child) {
         if (child.tag != null) {
             LOG.debug("      Adding tag {} to {}", child.tag, this.tag);
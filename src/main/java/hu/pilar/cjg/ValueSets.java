@@ -0,0 +1,45 @@
+package hu.pilar.cjg;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Interns attribute value sets, so that every distinct set is held by a
+ * single immutable instance. Sets are distinct if they differ in their
+ * elements or in their iteration order, as the order is visible in the
+ * output. Not thread-safe, meant to be used for a single generation.
+ */
+final class ValueSets {
+
+    private final Map<List<String>, Set<String>> canonical = new HashMap<>();
+
+    /**
+     * Returns the canonical immutable instance of the value set. Null values,
+     * which a value factory may return, are dropped.
+     */
+    Set<String> intern(Set<String> values) {
+        if (values.isEmpty()) {
+            return Set.of();
+        }
+        final var key = values.stream().filter(Objects::nonNull).toList();
+        if (key.isEmpty()) {
+            return Set.of();
+        }
+        final var existing = canonical.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        final var interned = Collections.unmodifiableSet(new LinkedHashSet<>(key));
+        canonical.put(key, interned);
+        return interned;
+    }
+
+    int size() {
+        return canonical.size();
+    }
+}
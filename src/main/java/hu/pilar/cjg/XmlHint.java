@@ -17,30 +17,207 @@
 package hu.pilar.cjg;
 
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.pilar.cjg.IAttributeValueFactory.Attribute;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.function.LongSupplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class XmlHint {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(XmlHint.class);
-    private final List<String> topElements = new ArrayList<>();
-    private final Map<String, Set<String>> attrs = new HashMap<>();
-    private final Map<String, TagInfo> any = new HashMap<>();
+    private static final String PREFIX = "var tags = ";
+    private static final String SUFFIX = ";";
+    private static final String SHARED_PREFIX = "var tags = (function () {\n";
+    private static final String SHARED_SUFFIX = ";\n})();";
+    private final List<String> topElements;
+    private final Map<String, Set<String>> attrs;
+    /**
+     * Kept sorted by tag name, so serialization can iterate it directly
+     */
+    private final Map<String, TagInfo> any;
+    /**
+     * Frozen hints are immutable, see {@link #freeze(Freezer)}
+     */
+    private final boolean frozen;
 
     private final ObjectMapper mapper;
+    /**
+     * Reports the size and the time of every serialization, may be null
+     */
+    private final IGenerationListener listener;
+    private volatile String version;
+    /**
+     * The names of the model classes the hints were generated from, with
+     * their supertypes and attribute enum types, see
+     * {@link ClassMetadata#getDependencies()}
+     */
+    private final List<String> classNames;
 
     XmlHint(ObjectMapper mapper, TagInfo tag) {
+        this(mapper, null, List.of());
         addTag(tag, true);
+    }
+
+    /**
+     * Empty hints, the tags are added by the caller
+     */
+    XmlHint(ObjectMapper mapper, IGenerationListener listener, List<String> classNames) {
         this.mapper = mapper;
+        this.listener = listener;
+        this.classNames = List.copyOf(classNames);
+        this.topElements = new ArrayList<>();
+        this.attrs = new HashMap<>();
+        this.any = new TreeMap<>();
+        this.frozen = false;
+    }
+
+    /**
+     * A changeable copy without the tags
+     */
+    private XmlHint(XmlHint original) {
+        this(original.mapper, original.listener, original.classNames);
+        this.topElements.addAll(original.topElements);
+        this.attrs.putAll(original.attrs);
+    }
+
+    private XmlHint(XmlHint original, Freezer freezer) {
+        this.mapper = original.mapper;
+        this.listener = original.listener;
+        this.classNames = original.classNames;
+        this.version = original.version;
+        this.topElements = original.topElements.stream().map(freezer::string).toList();
+        this.attrs = SortedArrayMap.of(new TreeMap<>(original.attrs), freezer, freezer::set);
+        this.any = SortedArrayMap.of(original.any, freezer, freezer::tag);
+        this.frozen = true;
+    }
+
+    /**
+     * Returns an immutable copy holding the tags in compact array backed
+     * structures (see {@link Freezer}), safe to share between threads. The
+     * generator freezes every hint it returns.
+     */
+    XmlHint freeze(Freezer freezer) {
+        return frozen ? this : new XmlHint(this, freezer);
+    }
+
+    boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Returns the hints with new values for some of the attributes provided
+     * by the {@link IAttributeValueFactory}, without reflecting over the
+     * model again. Only the tags having any of the changed attributes are
+     * copied, the rest is shared with this instance, which is not modified.
+     *
+     * @param changed the new value sets by factory attribute
+     * @return the patched hints or this instance if no tag is affected
+     */
+    public XmlHint withValues(Map<Attribute, Set<String>> changed) {
+        final var valueSets = new ValueSets();
+        // patched once per body, so aliases keep sharing it
+        final Map<TagInfo, TagInfo> bodies = new IdentityHashMap<>();
+        XmlHint patched = null;
+        for (TagInfo tag : any.values()) {
+            final var body = tag.getBody();
+            var patchedBody = bodies.get(body);
+            if (patchedBody == null) {
+                patchedBody = body.withValues(changed, valueSets);
+                bodies.put(body, patchedBody);
+            }
+            final TagInfo t;
+            if (patchedBody == body) {
+                t = tag;
+            } else {
+                t = tag.isAlias() ? TagInfo.alias(tag.getTag(), patchedBody) : patchedBody;
+            }
+            if (t != tag) {
+                if (patched == null) {
+                    patched = new XmlHint(this);
+                    patched.any.putAll(any);
+                }
+                patched.any.put(t.getTag(), t);
+            }
+        }
+        if (patched == null) {
+            return this;
+        }
+        return frozen ? patched.freeze(new Freezer()) : patched;
+    }
+
+    /**
+     * Returns the variant of the hints a user role or tenant is allowed to
+     * see. Tags the filter rejects are removed along with the tags only
+     * reachable through them, then the value sets of the filter replace the
+     * generated ones. Unchanged tags are shared with this instance, so a
+     * projection costs memory only for the tags it changes. The global
+     * attributes are tested with {@link HintFilter#GLOBAL} as the tag.
+     *
+     * @return frozen hints, or this instance if the filter changes nothing
+     */
+    public XmlHint project(HintFilter filter) {
+        final var projected = new XmlHint(this);
+        projected.topElements.removeIf(filter.tags().negate());
+        projected.attrs.keySet().removeIf(name -> !filter.attributes().test(HintFilter.GLOBAL, name));
+        // filtered once per body and name set, so aliases keep sharing when they can
+        final Map<TagInfo, List<TagInfo>> variants = new IdentityHashMap<>();
+        final var pending = new ArrayList<>(projected.topElements);
+        while (!pending.isEmpty()) {
+            final var name = pending.remove(pending.size() - 1);
+            final var tag = any.get(name);
+            if (tag == null || projected.any.containsKey(name)) {
+                continue;
+            }
+            final var body = tag.getBody();
+            final var filtered = body.filtered(a -> filter.attributes().test(name, a), filter.tags());
+            final TagInfo t;
+            if (filtered == body) {
+                t = tag;
+            } else {
+                final var same = variants.computeIfAbsent(body, b -> new ArrayList<>());
+                final var shared = same.stream()
+                    .filter(v -> v.getAttrs().keySet().equals(filtered.getAttrs().keySet())
+                    && v.getChildren().equals(filtered.getChildren()))
+                    .findFirst().orElse(null);
+                if (shared == null) {
+                    same.add(filtered);
+                }
+                final var b = shared != null ? shared : filtered;
+                t = name.equals(b.getTag()) ? b : TagInfo.alias(name, b);
+            }
+            projected.any.put(name, t);
+            pending.addAll(t.getChildren());
+        }
+        final var result = projected.withValues(filter.values());
+        if (result.topElements.equals(topElements) && result.attrs.equals(attrs)
+            && result.any.size() == any.size()
+            && result.any.entrySet().stream().allMatch(e -> any.get(e.getKey()) == e.getValue())) {
+            return this;
+        }
+        return result.freeze(new Freezer());
     }
 
     @JsonProperty("!top")
@@ -58,6 +235,10 @@ public class XmlHint {
     }
 
     XmlHint addTag(TagInfo tag, boolean topLevel) {
+        if (frozen) {
+            throw new IllegalStateException("Frozen hints cannot be changed");
+        }
+        version = null;
         any.put(tag.getTag(), tag);
         if (topLevel) {
             topElements.add(tag.getTag());
@@ -65,18 +246,391 @@ public class XmlHint {
         return this;
     }
 
+    /**
+     * The content version of the hints: the base64url encoded SHA-256 hash of
+     * the UTF-8 bytes of {@link #toJson()}, the same as the content hash of
+     * its {@link HintArtifact}, so an entity tag tells a client's version.
+     * Hashing is not reported as a serialization.
+     */
+    @JsonIgnore
+    public String getVersion() {
+        var v = version;
+        if (v == null) {
+            final var out = new ByteArrayOutputStream(8192);
+            try {
+                write(mapper.getFactory().createGenerator(out, JsonEncoding.UTF8));
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not serialize hints", ex);
+            }
+            v = HintArtifact.hash(out.toByteArray());
+            version = v;
+        }
+        return v;
+    }
+
+    /**
+     * Computes the changes that turn the previous hints into these ones, see
+     * {@link HintPatch}
+     */
+    public HintPatch diff(XmlHint previous) {
+        return HintPatch.between(previous, this);
+    }
+
+    ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    List<String> getClassNames() {
+        return classNames;
+    }
+
     @JsonAnyGetter
     Map<String, TagInfo> getAny() {
-        return new TreeMap<>(any);
+        return Collections.unmodifiableMap(any);
     }
 
     public String toJson() {
+        final var out = new StringWriter();
+        try {
+            writeTo(out);
+        } catch (IOException ex) {
+            LOGGER.error("", ex);
+            return "";
+        }
+        return out.toString();
+    }
+
+    /**
+     * Streams the same javascript as {@link #toJson()} into the stream as
+     * UTF-8, without building it in memory first. The stream is flushed but
+     * not closed.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        final var counting = new CountingOutputStream(out);
+        instrumented(() -> write(mapper.getFactory().createGenerator(counting, JsonEncoding.UTF8)), counting);
+    }
+
+    /**
+     * Streams the same javascript as {@link #toJson()} into the channel as
+     * UTF-8. The channel is not closed.
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        writeTo(Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Streams the same javascript as {@link #toJson()} into the writer. The
+     * writer is flushed but not closed.
+     */
+    public void writeTo(Writer out) throws IOException {
+        final var counting = new CountingWriter(out);
+        instrumented(() -> write(mapper.getFactory().createGenerator(counting)), counting);
+    }
+
+    private void write(JsonGenerator generator) throws IOException {
+        try (generator) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeRaw(PREFIX);
+            mapper.writeValue(generator, this);
+            generator.writeRaw(SUFFIX);
+        }
+    }
+
+    /**
+     * The same hints as {@link #toJson()}, but every value set that is used
+     * by more than one attribute is declared once as a local constant and
+     * referenced by name:
+     * <pre>
+     * var tags = (function () {
+     * var v0 = ["ONE","TWO","THREE"];
+     * return {"!top":["C"],"!attrs":{},"A":{"attrs":{"value":v0},"children":[]},...};
+     * })();
+     * </pre>
+     * Value sets are shared by identity, the sets of a single generation are
+     * interned, so equal sets are the same instance.
+     */
+    public String toJsonWithSharedValues() {
+        final var out = new StringWriter();
+        try {
+            writeWithSharedValuesTo(out);
+        } catch (IOException ex) {
+            LOGGER.error("", ex);
+            return "";
+        }
+        return out.toString();
+    }
+
+    /**
+     * Streams the same javascript as {@link #toJsonWithSharedValues()} into
+     * the writer. The writer is flushed but not closed.
+     */
+    public void writeWithSharedValuesTo(Writer out) throws IOException {
+        final var counting = new CountingWriter(out);
+        instrumented(() -> writeShared(mapper.getFactory().createGenerator(counting), false), counting);
+    }
+
+    /**
+     * The same hints as {@link #toJsonWithSharedValues()}, but the tags
+     * sharing their attributes and children, the elements renamed by
+     * {@code @XmlElement} and the element of the type they name, are also
+     * declared once and referenced by name:
+     * <pre>
+     * var tags = (function () {
+     * var v0 = ["ONE","TWO","THREE"];
+     * var t0 = {"attrs":{"nextValue":v0,"value":v0},"children":[]};
+     * return {"!top":["C"],"!attrs":{},"A":t0,"C":{...},"D":t0,"b":{...}};
+     * })();
+     * </pre>
+     * The tags are then the same object in the browser, so this output must
+     * not be patched in place with {@link HintPatch#APPLIER}.
+     */
+    public String toJsonWithSharedTags() {
+        final var out = new StringWriter();
+        try {
+            writeWithSharedTagsTo(out);
+        } catch (IOException ex) {
+            LOGGER.error("", ex);
+            return "";
+        }
+        return out.toString();
+    }
+
+    /**
+     * Streams the same javascript as {@link #toJsonWithSharedTags()} into
+     * the writer. The writer is flushed but not closed.
+     */
+    public void writeWithSharedTagsTo(Writer out) throws IOException {
+        final var counting = new CountingWriter(out);
+        instrumented(() -> writeShared(mapper.getFactory().createGenerator(counting), true), counting);
+    }
+
+    private void writeShared(JsonGenerator gen, boolean shareTags) throws IOException {
+        final Map<Set<String>, String> names = new IdentityHashMap<>();
+        final Map<TagInfo, String> bodies = new IdentityHashMap<>();
+        try (var generator = gen) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            generator.writeRaw(SHARED_PREFIX);
+            for (var values : sharedValues()) {
+                final var name = "v" + names.size();
+                names.put(values, name);
+                generator.writeRaw("var " + name + " = ");
+                writeValues(generator, values);
+                generator.writeRaw(";\n");
+            }
+            if (shareTags) {
+                for (var body : sharedBodies()) {
+                    final var name = "t" + bodies.size();
+                    bodies.put(body, name);
+                    generator.writeRaw("var " + name + " = ");
+                    writeTag(generator, body, names);
+                    generator.writeRaw(";\n");
+                }
+            }
+            generator.writeRaw("return ");
+            generator.writeStartObject();
+            generator.writeFieldName("!top");
+            writeValues(generator, topElements);
+            generator.writeFieldName("!attrs");
+            writeAttrs(generator, attrs, names);
+            for (var e : any.entrySet()) {
+                generator.writeFieldName(e.getKey());
+                final var name = bodies.get(e.getValue().getBody());
+                if (name != null) {
+                    generator.writeRawValue(name);
+                } else {
+                    writeTag(generator, e.getValue(), names);
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw(SHARED_SUFFIX);
+        }
+    }
+
+    private static void writeTag(JsonGenerator generator, TagInfo tag, Map<Set<String>, String> names)
+        throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName("attrs");
+        writeAttrs(generator, tag.getAttrs(), names);
+        generator.writeFieldName("children");
+        writeValues(generator, tag.getChildren());
+        generator.writeEndObject();
+    }
+
+    /**
+     * The bodies of the tags (see {@link TagInfo#getBody()}) used by more
+     * than one tag, in order of their first use
+     */
+    private List<TagInfo> sharedBodies() {
+        final Map<TagInfo, Integer> uses = new IdentityHashMap<>();
+        final var order = new ArrayList<TagInfo>();
+        for (TagInfo tag : any.values()) {
+            if (uses.merge(tag.getBody(), 1, Integer::sum) == 1) {
+                order.add(tag.getBody());
+            }
+        }
+        order.removeIf(body -> uses.get(body) == 1);
+        return order;
+    }
+
+    /**
+     * The non-empty value sets referenced more than once, in order of their
+     * first use
+     */
+    private List<Set<String>> sharedValues() {
+        final Map<Set<String>, Integer> uses = new IdentityHashMap<>();
+        final var order = new ArrayList<Set<String>>();
+        final var maps = new ArrayList<Map<String, Set<String>>>();
+        maps.add(attrs);
+        any.values().forEach(t -> maps.add(t.getAttrs()));
+        for (var m : maps) {
+            for (var values : m.values()) {
+                if (!values.isEmpty() && uses.merge(values, 1, Integer::sum) == 1) {
+                    order.add(values);
+                }
+            }
+        }
+        order.removeIf(values -> uses.get(values) == 1);
+        return order;
+    }
+
+    private static void writeAttrs(JsonGenerator generator, Map<String, Set<String>> attrs,
+                                   Map<Set<String>, String> names) throws IOException {
+        generator.writeStartObject();
+        for (var e : attrs.entrySet()) {
+            generator.writeFieldName(e.getKey());
+            final var name = names.get(e.getValue());
+            if (name != null) {
+                generator.writeRawValue(name);
+            } else {
+                writeValues(generator, e.getValue());
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeValues(JsonGenerator generator, Iterable<String> values) throws IOException {
+        generator.writeStartArray();
+        for (var v : values) {
+            generator.writeString(v);
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * The same hints as {@link #toJson()} in a compact encoding: tag,
+     * attribute and value names are stored once in a string table, value
+     * sets once in a set table, and a small decoder included in the output
+     * rebuilds the {@code tags} variable on the client from the indexes.
+     */
+    public String toCompactJs() {
+        final var out = new StringWriter();
         try {
-            return "var tags = " + mapper.writeValueAsString(this) + ";";
-        } catch (JsonProcessingException ex) {
+            writeCompactTo(out);
+        } catch (IOException ex) {
             LOGGER.error("", ex);
             return "";
         }
+        return out.toString();
+    }
+
+    /**
+     * Streams the same javascript as {@link #toCompactJs()} into the writer.
+     * The writer is flushed but not closed.
+     */
+    public void writeCompactTo(Writer out) throws IOException {
+        final var counting = new CountingWriter(out);
+        instrumented(() -> CompactHintWriter.write(this, mapper.getFactory().createGenerator(counting)), counting);
+    }
+
+    /**
+     * Runs the serialization and reports it to the listener and as a JFR event
+     */
+    private void instrumented(Serialization serialization, LongSupplier size) throws IOException {
+        final var event = new HintEvents.Serialization();
+        event.begin();
+        final long start = System.nanoTime();
+        serialization.run();
+        final long nanos = System.nanoTime() - start;
+        event.end();
+        if (event.shouldCommit()) {
+            event.size = size.getAsLong();
+            event.commit();
+        }
+        if (listener != null) {
+            listener.serialized(this, size.getAsLong(), nanos);
+        }
+    }
+
+    private interface Serialization {
+        void run() throws IOException;
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream implements LongSupplier {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public long getAsLong() {
+            return count;
+        }
+    }
+
+    private static final class CountingWriter extends FilterWriter implements LongSupplier {
+        private long count;
+
+        CountingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.write(str, off, len);
+            count += len;
+        }
+
+        @Override
+        public long getAsLong() {
+            return count;
+        }
+    }
+
+    /**
+     * The plain json object without the javascript variable declaration,
+     * reported to the listener like the other serializations
+     */
+    String toRawJson() throws IOException {
+        final var out = new StringWriter();
+        final var counting = new CountingWriter(out);
+        instrumented(() -> mapper.writeValue(counting, this), counting);
+        return out.toString();
     }
 
 }
@@ -0,0 +1,723 @@
+package hu.pilar.cjg;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.pilar.cjg.IAttributeValueFactory.Attribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Builds hints from XML schema files instead of JAXB classes, without loading
+ * or reflecting over any class:
+ * <pre>
+ * var reader = new XsdHintReader(new ObjectMapper());
+ * reader.read(Path.of("schema/orders.xsd")); // follows include and import
+ * Optional&lt;XmlHint&gt; hint = reader.getHintsFor("order");
+ * </pre>
+ * The schemas are read with a single streaming StAX pass. Only the
+ * declarations are kept - names, type references and enumerations - never
+ * the document tree, annotations or text, so memory grows with the number of
+ * declarations and not with the size of the files.
+ * <p>
+ * A schema equivalent to a JAXB model gives the same hints as
+ * {@link HintGenerator}: a global element is a root element, a named type is
+ * a class whose tag is the first global element of that type, local elements
+ * are renamed elements sharing the tag of their type (see
+ * {@link TagInfo#alias(String, TagInfo)}), element references work like
+ * {@code @XmlElementRef} with the members of the substitution group in place
+ * of subclasses, booleans and enumerations get fixed values and every other
+ * attribute is left to the {@link IAttributeValueFactory}. Names are local
+ * names, target namespaces are ignored. Not thread-safe while reading.
+ */
+public class XsdHintReader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(XsdHintReader.class);
+
+    private static final String BUILTIN = "xs:";
+    private static final String ANY_TYPE = BUILTIN + "anyType";
+    private static final String BOOLEAN = BUILTIN + "boolean";
+    private static final Set<String> BOOLEAN_VALUES =
+        Collections.unmodifiableSet(new LinkedHashSet<>(List.of("true", "false")));
+    /**
+     * The java types JAXB binds the numeric builtin types of required
+     * attributes to, passed to the value factory. Optional attributes get the
+     * wrapper types. Types not listed, dates and binaries among them, are
+     * passed as strings.
+     */
+    private static final Map<String, Class<?>> JAVA_TYPES = Map.ofEntries(
+        Map.entry(BUILTIN + "int", int.class),
+        Map.entry(BUILTIN + "long", long.class),
+        Map.entry(BUILTIN + "short", short.class),
+        Map.entry(BUILTIN + "byte", byte.class),
+        Map.entry(BUILTIN + "double", double.class),
+        Map.entry(BUILTIN + "float", float.class),
+        Map.entry(BUILTIN + "unsignedInt", long.class),
+        Map.entry(BUILTIN + "unsignedShort", int.class),
+        Map.entry(BUILTIN + "unsignedByte", short.class),
+        Map.entry(BUILTIN + "unsignedLong", BigInteger.class),
+        Map.entry(BUILTIN + "integer", BigInteger.class),
+        Map.entry(BUILTIN + "positiveInteger", BigInteger.class),
+        Map.entry(BUILTIN + "negativeInteger", BigInteger.class),
+        Map.entry(BUILTIN + "nonPositiveInteger", BigInteger.class),
+        Map.entry(BUILTIN + "nonNegativeInteger", BigInteger.class),
+        Map.entry(BUILTIN + "decimal", BigDecimal.class));
+    /**
+     * Stands for the subtree of an element that is skipped
+     */
+    private static final Object SKIP = new Object();
+    private static final Object SCHEMA = new Object();
+
+    private final ObjectMapper mapper;
+    private final IAttributeValueFactory valueSetFactory;
+    private final XMLInputFactory inputFactory;
+
+    private final Map<String, Element> elements = new LinkedHashMap<>();
+    private final Map<String, Content> complexTypes = new HashMap<>();
+    private final Map<String, SimpleType> simpleTypes = new HashMap<>();
+    private final Map<String, Content> groups = new HashMap<>();
+    private final Map<String, Content> attributeGroups = new HashMap<>();
+    private final Map<String, Attr> attributes = new HashMap<>();
+    private final Set<Path> files = new HashSet<>();
+
+    public XsdHintReader(ObjectMapper mapper) {
+        this(mapper, null);
+    }
+
+    /**
+     * @param valueSetFactory provides the values of attributes without fixed
+     *                        values, may be null
+     */
+    public XsdHintReader(ObjectMapper mapper, IAttributeValueFactory valueSetFactory) {
+        this.mapper = mapper;
+        this.valueSetFactory = valueSetFactory;
+        this.inputFactory = XMLInputFactory.newFactory();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Reads a schema file and the local files it includes or imports. Files
+     * already read are skipped, remote schema locations are not followed.
+     */
+    public void read(Path schema) throws IOException {
+        final Deque<Path> queue = new ArrayDeque<>();
+        queue.add(schema.toAbsolutePath().normalize());
+        while (!queue.isEmpty()) {
+            final var file = queue.poll();
+            if (!files.add(file)) {
+                continue;
+            }
+            LOG.debug("Reading schema {}", file);
+            final var locations = new ArrayList<String>();
+            try (InputStream in = Files.newInputStream(file)) {
+                parse(in, file.toString(), locations);
+            }
+            for (String location : locations) {
+                final var uri = URI.create(location);
+                if (uri.getScheme() == null) {
+                    queue.add(file.resolveSibling(location).normalize());
+                } else if ("file".equals(uri.getScheme())) {
+                    queue.add(Path.of(uri).normalize());
+                } else {
+                    LOG.debug("Not following the schema location {} in {}", location, file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a single schema, its includes and imports are not followed
+     */
+    public void read(InputStream schema) throws IOException {
+        parse(schema, "stream", new ArrayList<>());
+    }
+
+    /**
+     * The names of the global elements that can be roots
+     */
+    public Set<String> getElementNames() {
+        final var names = new TreeSet<String>();
+        elements.forEach((name, element) -> {
+            if (!element.isAbstract) {
+                names.add(name);
+            }
+        });
+        return names;
+    }
+
+    /**
+     * Builds the hints of a global element
+     *
+     * @return empty if there is no such global element or it is abstract
+     */
+    public Optional<XmlHint> getHintsFor(String element) {
+        final var root = elements.get(element);
+        if (root == null || root.isAbstract) {
+            return Optional.empty();
+        }
+        final var build = new Build();
+        final var t = build.global(element);
+        build.run();
+        final var hint = new XmlHint(mapper, t);
+        for (TagInfo tag : build.created) {
+            hint.addTag(tag);
+        }
+        LOG.debug("Built {} tags for {} sharing {} distinct value sets", build.created.size(), element,
+            build.valueSets.size());
+        return Optional.of(hint.freeze(new Freezer()));
+    }
+
+    /**
+     * Collects the declarations of a schema, keeping a stack of what each
+     * open element of the schema declares
+     */
+    private void parse(InputStream in, String name, List<String> locations) throws IOException {
+        try {
+            final XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+            try {
+                final Deque<Object> stack = new ArrayDeque<>();
+                while (reader.hasNext()) {
+                    switch (reader.next()) {
+                        case XMLStreamConstants.START_ELEMENT -> stack.push(start(reader, stack.peek(), locations));
+                        case XMLStreamConstants.END_ELEMENT -> stack.pop();
+                        default -> {
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException ex) {
+            throw new IOException("Could not read schema " + name, ex);
+        }
+    }
+
+    /**
+     * @param parent what the enclosing element declares, null at the top
+     * @return what this element declares, its children are added to it
+     */
+    private Object start(XMLStreamReader reader, Object parent, List<String> locations) {
+        if (parent == SKIP || !XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(reader.getNamespaceURI())) {
+            return SKIP;
+        }
+        final var name = reader.getAttributeValue(null, "name");
+        switch (reader.getLocalName()) {
+            case "schema":
+                return SCHEMA;
+            case "include", "import", "redefine", "override": {
+                final var location = reader.getAttributeValue(null, "schemaLocation");
+                if (location != null) {
+                    locations.add(location);
+                }
+                return parent == SCHEMA ? SCHEMA : SKIP;
+            }
+            case "element": {
+                final var e = new Element();
+                e.name = name;
+                e.type = typeName(reader, reader.getAttributeValue(null, "type"));
+                e.ref = typeName(reader, reader.getAttributeValue(null, "ref"));
+                e.isAbstract = "true".equals(reader.getAttributeValue(null, "abstract"));
+                final var group = reader.getAttributeValue(null, "substitutionGroup");
+                if (group != null) {
+                    for (String head : group.trim().split("\\s+")) {
+                        e.substitutionGroups.add(typeName(reader, head));
+                    }
+                }
+                if (parent == SCHEMA) {
+                    elements.putIfAbsent(name, e);
+                } else if (parent instanceof Content c) {
+                    c.particles.add(e);
+                } else {
+                    return SKIP;
+                }
+                return e;
+            }
+            case "complexType": {
+                final var c = new Content();
+                if (parent == SCHEMA) {
+                    complexTypes.putIfAbsent(name, c);
+                } else if (parent instanceof Element e) {
+                    e.content = c;
+                } else {
+                    return SKIP;
+                }
+                return c;
+            }
+            case "simpleType": {
+                final var s = new SimpleType();
+                if (parent == SCHEMA) {
+                    simpleTypes.putIfAbsent(name, s);
+                } else if (parent instanceof Attr a) {
+                    a.simpleType = s;
+                }
+                // the anonymous types of elements and of unions have no values to offer
+                return s;
+            }
+            case "restriction", "extension": {
+                final var base = typeName(reader, reader.getAttributeValue(null, "base"));
+                if (parent instanceof SimpleType s) {
+                    s.base = base;
+                } else if (parent instanceof Content c) {
+                    c.base = base;
+                    c.extension = reader.getLocalName().equals("extension");
+                } else {
+                    return SKIP;
+                }
+                return parent;
+            }
+            case "enumeration": {
+                if (parent instanceof SimpleType s) {
+                    s.values.add(reader.getAttributeValue(null, "value"));
+                }
+                return SKIP;
+            }
+            case "union", "list": {
+                if (parent instanceof SimpleType s) {
+                    s.values.clear();
+                    s.free = true;
+                }
+                return parent;
+            }
+            case "simpleContent", "complexContent", "sequence", "choice", "all":
+                return parent instanceof Content ? parent : SKIP;
+            case "group":
+                return declaration(reader, parent, name, groups, c -> c.groups);
+            case "attributeGroup":
+                return declaration(reader, parent, name, attributeGroups, c -> c.attributeGroups);
+            case "attribute": {
+                final var a = new Attr();
+                a.name = name;
+                a.ref = reader.getAttributeValue(null, "ref");
+                a.type = typeName(reader, reader.getAttributeValue(null, "type"));
+                a.prohibited = "prohibited".equals(reader.getAttributeValue(null, "use"));
+                a.required = "required".equals(reader.getAttributeValue(null, "use"));
+                if (parent == SCHEMA) {
+                    attributes.putIfAbsent(name, a);
+                } else if (parent instanceof Content c) {
+                    c.attributes.add(a);
+                } else {
+                    return SKIP;
+                }
+                return a;
+            }
+            default:
+                // annotations, wildcards, identity constraints and facets other than enumerations
+                return SKIP;
+        }
+    }
+
+    /**
+     * A named group declared at the top of the schema, or a reference to one
+     */
+    private Object declaration(XMLStreamReader reader, Object parent, String name, Map<String, Content> declared,
+                               Function<Content, List<String>> references) {
+        if (parent == SCHEMA && name != null) {
+            final var c = new Content();
+            declared.putIfAbsent(name, c);
+            return c;
+        }
+        final var ref = reader.getAttributeValue(null, "ref");
+        if (parent instanceof Content c && ref != null) {
+            references.apply(c).add(typeName(reader, ref));
+        }
+        return SKIP;
+    }
+
+    /**
+     * The local name of a referenced declaration, builtin types of the
+     * schema namespace are prefixed with {@code xs:} whatever their prefix is
+     */
+    private static String typeName(XMLStreamReader reader, String qualifiedName) {
+        if (qualifiedName == null) {
+            return null;
+        }
+        final int colon = qualifiedName.indexOf(':');
+        final var prefix = colon < 0 ? XMLConstants.DEFAULT_NS_PREFIX : qualifiedName.substring(0, colon);
+        final var local = qualifiedName.substring(colon + 1);
+        return XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(reader.getNamespaceURI(prefix)) ? BUILTIN + local : local;
+    }
+
+    /**
+     * The fixed values of a simple type, following its restriction bases
+     *
+     * @return null if the values are free
+     */
+    private Set<String> valuesOf(SimpleType type, String name) {
+        var s = type != null || name == null ? type : simpleTypes.get(name);
+        var base = name;
+        for (int depth = 0; depth < 64; depth++) {
+            if (s == null) {
+                return BOOLEAN.equals(base) ? BOOLEAN_VALUES : null;
+            }
+            if (s.free) {
+                return null;
+            }
+            if (!s.values.isEmpty()) {
+                return new LinkedHashSet<>(s.values);
+            }
+            base = s.base;
+            s = base == null ? null : simpleTypes.get(base);
+        }
+        return null;
+    }
+
+    /**
+     * The java type JAXB would bind an attribute of a simple type to, see
+     * {@link #JAVA_TYPES}
+     */
+    private Class<?> javaType(SimpleType type, String name, boolean required) {
+        var s = type != null || name == null ? type : simpleTypes.get(name);
+        var base = name;
+        for (int depth = 0; depth < 64 && s != null; depth++) {
+            base = s.base;
+            s = base == null ? null : simpleTypes.get(base);
+        }
+        final Class<?> bound = base == null ? String.class : JAVA_TYPES.getOrDefault(base, String.class);
+        return required ? bound : MethodType.methodType(bound).wrap().returnType();
+    }
+
+    /**
+     * The tags reachable from one root. Bodies are filled from a queue and
+     * base types and groups are followed with a stack rather than
+     * recursively, so chains of types of any length are fine.
+     */
+    private final class Build {
+
+        final List<TagInfo> created = new ArrayList<>();
+        final ValueSets valueSets = new ValueSets();
+        private final Map<String, TagInfo> globals = new HashMap<>();
+        private final Map<String, TagInfo> typeBodies = new HashMap<>();
+        private final Map<String, String> owners = new HashMap<>();
+        private final Map<String, List<String>> members = new HashMap<>();
+        private final Deque<Pending> pending = new ArrayDeque<>();
+        /**
+         * Attributes left to the value factory, by tag
+         */
+        private final Map<Attribute, List<TagInfo>> open = new LinkedHashMap<>();
+
+        Build() {
+            elements.forEach((name, element) -> {
+                if (!element.isAbstract && element.content == null && element.type != null
+                    && !element.type.startsWith(BUILTIN)) {
+                    owners.putIfAbsent(element.type, name);
+                }
+                for (String head : element.substitutionGroups) {
+                    members.computeIfAbsent(head, h -> new ArrayList<>()).add(name);
+                }
+            });
+        }
+
+        void run() {
+            while (!pending.isEmpty()) {
+                final var p = pending.poll();
+                fill(p.tag(), p.content());
+            }
+            if (open.isEmpty()) {
+                return;
+            }
+            final var values = lookupValues(open.keySet());
+            open.forEach((attribute, tags) -> {
+                final var found = values.get(attribute);
+                final var interned = valueSets.intern(found != null ? found : Set.of());
+                for (TagInfo tag : tags) {
+                    tag.withAttribute(attribute.name(), interned, attribute);
+                }
+            });
+        }
+
+        /**
+         * The tag of a global element, created on the first call
+         */
+        TagInfo global(String name) {
+            final var existing = globals.get(name);
+            if (existing != null) {
+                return existing;
+            }
+            final var element = elements.get(name);
+            final TagInfo t;
+            if (element.content != null) {
+                t = new TagInfo(name);
+                pending.add(new Pending(t, element.content));
+            } else {
+                final var body = typeBody(element.type);
+                if (name.equals(body.getTag())) {
+                    return body;
+                }
+                t = TagInfo.alias(name, body);
+            }
+            globals.put(name, t);
+            created.add(t);
+            return t;
+        }
+
+        /**
+         * The tag shared by the elements of a named type, named after the
+         * first global element of the type
+         */
+        TagInfo typeBody(String type) {
+            final var key = type != null ? type : ANY_TYPE;
+            final var existing = typeBodies.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            final var owner = owners.get(key);
+            final var body = new TagInfo(owner);
+            typeBodies.put(key, body);
+            final var content = complexTypes.get(key);
+            if (content != null) {
+                pending.add(new Pending(body, content));
+            }
+            if (owner != null) {
+                globals.put(owner, body);
+                created.add(body);
+            }
+            return body;
+        }
+
+        /**
+         * Adds the attributes and children of the content to the tag, those
+         * of its base type, attribute groups and model groups coming first.
+         * The steps are kept on a stack in the order a recursive walk would
+         * take them.
+         */
+        private void fill(TagInfo t, Content content) {
+            final Set<Content> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+            final Deque<Step> steps = new ArrayDeque<>();
+            steps.push(new Step(content, true, Step.Part.CONTENT));
+            while (!steps.isEmpty()) {
+                final var step = steps.pop();
+                final var c = step.content();
+                switch (step.part()) {
+                    case CONTENT -> {
+                        if (!visited.add(c)) {
+                            continue;
+                        }
+                        // pushed in reverse, so they are popped in declaration order
+                        if (step.withElements()) {
+                            steps.push(new Step(c, true, Step.Part.PARTICLES));
+                            push(steps, c.groups, groups, true);
+                        }
+                        steps.push(new Step(c, false, Step.Part.ATTRIBUTES));
+                        push(steps, c.attributeGroups, attributeGroups, false);
+                        final var base = c.base == null ? null : complexTypes.get(c.base);
+                        if (base != null) {
+                            steps.push(new Step(base, step.withElements() && c.extension, Step.Part.CONTENT));
+                        }
+                    }
+                    case ATTRIBUTES -> {
+                        for (Attr a : c.attributes) {
+                            attribute(t, a);
+                        }
+                    }
+                    case PARTICLES -> {
+                        for (Element particle : c.particles) {
+                            child(t, particle);
+                        }
+                    }
+                }
+            }
+        }
+
+        private static void push(Deque<Step> steps, List<String> refs, Map<String, Content> declared,
+                                 boolean withElements) {
+            for (int i = refs.size() - 1; i >= 0; i--) {
+                final var group = declared.get(refs.get(i));
+                if (group != null) {
+                    steps.push(new Step(group, withElements, Step.Part.CONTENT));
+                }
+            }
+        }
+
+        private void attribute(TagInfo t, Attr declared) {
+            var a = declared;
+            var name = declared.name;
+            if (declared.ref != null) {
+                name = declared.ref.startsWith("xml:")
+                    ? declared.ref
+                    : declared.ref.substring(declared.ref.indexOf(':') + 1);
+                a = attributes.getOrDefault(name, declared);
+            }
+            if (name == null) {
+                return;
+            }
+            // a derived type redeclares or prohibits the attribute of its base type
+            for (var it = open.entrySet().iterator(); it.hasNext(); ) {
+                final var e = it.next();
+                if (e.getKey().name().equals(name) && e.getValue().removeIf(tag -> tag == t)
+                    && e.getValue().isEmpty()) {
+                    it.remove();
+                }
+            }
+            if (declared.prohibited) {
+                t.getAttrs().remove(name);
+                t.getSources().remove(name);
+                return;
+            }
+            final var values = valuesOf(a.simpleType, a.type);
+            if (values != null) {
+                t.withAttribute(name, valueSets.intern(values));
+                return;
+            }
+            final var attribute = new Attribute(name, javaType(a.simpleType, a.type, declared.required));
+            t.withAttribute(name, Set.of(), attribute);
+            open.computeIfAbsent(attribute, k -> new ArrayList<>()).add(t);
+        }
+
+        private void child(TagInfo t, Element particle) {
+            if (particle.ref != null) {
+                // like @XmlElementRef: the element and the members of its substitution group
+                for (String name : substitutes(particle.ref)) {
+                    t.getChildren().add(global(name).getTag());
+                }
+                return;
+            }
+            if (particle.name == null) {
+                return;
+            }
+            final TagInfo c;
+            if (particle.content != null) {
+                c = new TagInfo(particle.name);
+                pending.add(new Pending(c, particle.content));
+            } else {
+                final var body = typeBody(particle.type);
+                if (particle.name.equals(body.getTag())) {
+                    t.getChildren().add(particle.name);
+                    return;
+                }
+                c = TagInfo.alias(particle.name, body);
+            }
+            created.add(c);
+            t.getChildren().add(particle.name);
+        }
+
+        /**
+         * The element if it is not abstract and the transitive members of its
+         * substitution group
+         */
+        private List<String> substitutes(String head) {
+            final var result = new ArrayList<String>();
+            final var seen = new HashSet<String>();
+            final Deque<String> queue = new ArrayDeque<>();
+            queue.add(head);
+            while (!queue.isEmpty()) {
+                final var name = queue.poll();
+                final var element = elements.get(name);
+                if (element == null || !seen.add(name)) {
+                    continue;
+                }
+                if (!element.isAbstract) {
+                    result.add(name);
+                }
+                queue.addAll(members.getOrDefault(name, List.of()));
+            }
+            return result;
+        }
+    }
+
+    private Map<Attribute, Set<String>> lookupValues(Collection<Attribute> attrs) {
+        if (valueSetFactory == null) {
+            return Map.of();
+        }
+        LOG.debug("Looking up values of {} attributes", attrs.size());
+        try {
+            final var values = valueSetFactory.getValuesForAsync(List.copyOf(attrs)).join();
+            return values != null ? values : Map.of();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private record Pending(TagInfo tag, Content content) {
+    }
+
+    /**
+     * A content to walk, or the attributes or particles of one to add
+     */
+    private record Step(Content content, boolean withElements, Part part) {
+
+        enum Part {
+            CONTENT,
+            ATTRIBUTES,
+            PARTICLES
+        }
+    }
+
+    /**
+     * A global or local element declaration, or a reference to one
+     */
+    private static final class Element {
+        String name;
+        String type;
+        String ref;
+        boolean isAbstract;
+        final List<String> substitutionGroups = new ArrayList<>(1);
+        /**
+         * The anonymous complex type, null if the element has a type
+         */
+        Content content;
+    }
+
+    /**
+     * A complex type, a model group or an attribute group
+     */
+    private static final class Content {
+        String base;
+        boolean extension;
+        final List<Attr> attributes = new ArrayList<>();
+        final List<Element> particles = new ArrayList<>();
+        final List<String> groups = new ArrayList<>(0);
+        final List<String> attributeGroups = new ArrayList<>(0);
+    }
+
+    private static final class Attr {
+        String name;
+        String ref;
+        String type;
+        boolean prohibited;
+        boolean required;
+        SimpleType simpleType;
+    }
+
+    private static final class SimpleType {
+        String base;
+        final List<String> values = new ArrayList<>(0);
+        /**
+         * Lists and unions, whose values are not enumerated
+         */
+        boolean free;
+    }
+}
@@ -0,0 +1,89 @@
+package hu.pilar.cjg;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlElementRef;
+import jakarta.xml.bind.annotation.XmlElements;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlSeeAlso;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ClosedWorldSubclassFinderTest {
+
+  @Test
+  void testFindsDeclaredSubtypesOnly() {
+    var finder = new ClosedWorldSubclassFinder(Drawing.class);
+
+    assertThat(finder.findClassesThatExtend(Shape.class))
+        .containsExactlyInAnyOrder(Circle.class, Square.class, RoundedSquare.class);
+    assertThat(finder.findClassesThatExtend(Square.class)).containsExactly(RoundedSquare.class);
+    assertThat(finder.findClassesThatExtend(Label.class)).containsExactly(Note.class);
+    assertThat(finder.findClassesThatExtend(Circle.class)).isEmpty();
+    assertThat(finder.findClassesThatExtend(String.class)).isEmpty();
+  }
+
+  @Test
+  void testGeneratesHints() {
+    var hg =
+        new HintGenerator(new ObjectMapper(), new ClosedWorldSubclassFinder(Drawing.class));
+
+    assertThat(hg.getHintsFor(Drawing.class).orElseThrow().toJson())
+        .isEqualTo(
+            "var tags = {"
+                + "\"!top\":[\"drawing\"],"
+                + "\"!attrs\":{},"
+                + "\"circle\":{\"attrs\":{\"radius\":[]},\"children\":[]},"
+                + "\"drawing\":{\"attrs\":{},\"children\":[\"circle\",\"roundedSquare\",\"square\"]},"
+                + "\"roundedSquare\":{\"attrs\":{},\"children\":[]},"
+                + "\"square\":{\"attrs\":{},\"children\":[]}"
+                + "};");
+  }
+
+  @XmlSeeAlso({Circle.class, Square.class})
+  abstract static class Shape {}
+
+  @XmlRootElement
+  static class Circle extends Shape {
+    @XmlAttribute
+    public String getRadius() {
+      return "";
+    }
+  }
+
+  @XmlRootElement
+  @XmlSeeAlso(RoundedSquare.class)
+  static class Square extends Shape {}
+
+  @XmlRootElement
+  static class RoundedSquare extends Square {}
+
+  /** Not referenced from any annotation, so it is outside the closed world */
+  @XmlRootElement
+  static class Triangle extends Shape {}
+
+  @XmlRootElement
+  static class Label {}
+
+  @XmlRootElement
+  static class Note extends Label {}
+
+  @XmlRootElement
+  static class Drawing {
+    @XmlElementRef
+    public List<Shape> getShapes() {
+      return List.of();
+    }
+
+    @XmlElements({
+      @XmlElement(name = "label", type = Label.class),
+      @XmlElement(name = "note", type = Note.class)
+    })
+    public List<Object> getItems() {
+      return List.of();
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package hu.pilar.cjg;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import hu.pilar.cjg.HintGeneratorTest.TestClass;
+import java.io.ByteArrayInputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HintArtifactHandlerTest {
+
+  private final XmlHint hint =
+      new HintGenerator(new ObjectMapper()).getHintsFor(TestClass.class).orElseThrow();
+  private final HintArtifact artifact = HintArtifact.of(hint);
+  private final HttpClient client = HttpClient.newHttpClient();
+  private HttpServer server;
+  private URI uri;
+
+  @BeforeEach
+  void start() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/hints.js", new HintArtifactHandler(artifact));
+    server.start();
+    uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/hints.js");
+  }
+
+  @AfterEach
+  void stop() {
+    server.stop(0);
+  }
+
+  @Test
+  void testArtifact() {
+    assertThat(artifact.asString()).isEqualTo(hint.toJson());
+    assertThat(artifact.getETag(false)).isEqualTo(HintArtifact.of(hint).getETag(false));
+    assertThat(artifact.getETag(true)).isNotEqualTo(artifact.getETag(false));
+    assertThat(artifact.getBytes().isReadOnly()).isTrue();
+  }
+
+  @Test
+  void testServesPlainAndGzip() throws Exception {
+    var plain = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+    assertThat(plain.statusCode()).isEqualTo(200);
+    assertThat(plain.body()).isEqualTo(hint.toJson());
+    assertThat(plain.headers().firstValue("ETag")).contains(artifact.getETag(false));
+
+    var gzip =
+        client.send(
+            HttpRequest.newBuilder(uri).header("Accept-Encoding", "br, gzip;q=0.8").build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+    assertThat(gzip.statusCode()).isEqualTo(200);
+    assertThat(gzip.headers().firstValue("Content-Encoding")).contains("gzip");
+    assertThat(gzip.headers().firstValue("ETag")).contains(artifact.getETag(true));
+    try (var in = new GZIPInputStream(new ByteArrayInputStream(gzip.body()))) {
+      assertThat(new String(in.readAllBytes(), UTF_8))
+          .isEqualTo(hint.toJson());
+    }
+  }
+
+  @Test
+  void testConditionalGet() throws Exception {
+    var notModified =
+        client.send(
+            HttpRequest.newBuilder(uri).header("If-None-Match", artifact.getETag(false)).build(),
+            HttpResponse.BodyHandlers.ofString());
+    assertThat(notModified.statusCode()).isEqualTo(304);
+    assertThat(notModified.body()).isEmpty();
+
+    var modified =
+        client.send(
+            HttpRequest.newBuilder(uri).header("If-None-Match", "\"other\"").build(),
+            HttpResponse.BodyHandlers.ofString());
+    assertThat(modified.statusCode()).isEqualTo(200);
+
+    var post =
+        client.send(
+            HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.noBody()).build(),
+            HttpResponse.BodyHandlers.ofString());
+    assertThat(post.statusCode()).isEqualTo(405);
+  }
+
+  @Test
+  void testAcceptsGzip() {
+    assertThat(HintArtifactHandler.acceptsGzip(null)).isFalse();
+    assertThat(HintArtifactHandler.acceptsGzip("gzip, deflate")).isTrue();
+    assertThat(HintArtifactHandler.acceptsGzip("deflate, gzip;q=0")).isFalse();
+    assertThat(HintArtifactHandler.acceptsGzip("identity")).isFalse();
+  }
+}
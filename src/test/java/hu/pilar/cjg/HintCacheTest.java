@@ -0,0 +1,163 @@
+package hu.pilar.cjg;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.pilar.cjg.HintGeneratorTest.DefaultNameTestClass;
+import hu.pilar.cjg.HintGeneratorTest.TestClass;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class HintCacheTest {
+
+  private final AtomicInteger lookups = new AtomicInteger();
+
+  private final ISubclassFinder countingFinder =
+      new ISubclassFinder() {
+        @Override
+        public <T> Set<Class<? extends T>> findClassesThatExtend(final Class<T> parent) {
+          lookups.incrementAndGet();
+          return Set.of();
+        }
+      };
+
+  @Test
+  void testHitsAndMisses() {
+    var hg = new HintGenerator(new ObjectMapper(), countingFinder);
+    var cache = new HintCache(10);
+
+    var first = cache.getJsonFor(hg, DefaultNameTestClass.class);
+    int lookupsAfterFirst = lookups.get();
+    var second = cache.getJsonFor(hg, DefaultNameTestClass.class);
+
+    assertThat(first).isPresent();
+    assertThat(second).contains(first.orElseThrow());
+    assertThat(lookups.get()).isEqualTo(lookupsAfterFirst);
+    assertThat(cache.getHintsFor(hg, DefaultNameTestClass.class)).isPresent();
+    assertThat(cache.getStats()).isEqualTo(new HintCache.Stats(2, 1, 0, 1));
+  }
+
+  @Test
+  void testNonJaxbRootIsCached() {
+    var hg = new HintGenerator(new ObjectMapper(), countingFinder);
+    var cache = new HintCache(10);
+
+    assertThat(cache.getHintsFor(hg, Object.class)).isEmpty();
+    assertThat(cache.getJsonFor(hg, Object.class)).isEmpty();
+    assertThat(cache.getStats().hits()).isEqualTo(1);
+  }
+
+  @Test
+  void testKeyedByConfiguration() {
+    var mapper = new ObjectMapper();
+    var cache = new HintCache(10);
+
+    cache.getHintsFor(new HintGenerator(mapper, countingFinder), TestClass.class);
+    cache.getHintsFor(new HintGenerator(mapper, countingFinder), TestClass.class);
+    cache.getHintsFor(new HintGenerator(mapper, (a, t) -> Set.of(), countingFinder), TestClass.class);
+
+    assertThat(cache.getStats()).isEqualTo(new HintCache.Stats(1, 2, 0, 2));
+  }
+
+  @Test
+  void testEviction() {
+    var hg = new HintGenerator(new ObjectMapper(), countingFinder);
+    var cache = new HintCache(1);
+
+    cache.getHintsFor(hg, TestClass.class);
+    cache.getHintsFor(hg, DefaultNameTestClass.class);
+    cache.getHintsFor(hg, TestClass.class);
+
+    assertThat(cache.getStats()).isEqualTo(new HintCache.Stats(0, 3, 2, 1));
+  }
+
+  @Test
+  void testConcurrentRequestsShareOneGeneration() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var generations = new AtomicInteger();
+    var hg =
+        new HintGenerator(
+            new ObjectMapper(),
+            new ISubclassFinder() {
+              @Override
+              public <T> Set<Class<? extends T>> findClassesThatExtend(final Class<T> parent) {
+                if (parent == TestClass.class) {
+                  generations.incrementAndGet();
+                  started.countDown();
+                  try {
+                    release.await();
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                }
+                return Set.of();
+              }
+            });
+    var cache = new HintCache(10);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      var results = new ArrayList<Future<String>>();
+      results.add(executor.submit(() -> cache.getJsonFor(hg, TestClass.class).orElseThrow()));
+      started.await();
+      for (int i = 0; i < 3; i++) {
+        results.add(executor.submit(() -> cache.getJsonFor(hg, TestClass.class).orElseThrow()));
+      }
+      while (cache.getStats().misses() < 4) {
+        Thread.onSpinWait();
+      }
+      release.countDown();
+      var json = results.get(0).get();
+      for (var result : results) {
+        assertThat(result.get()).isSameAs(json);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(generations.get()).isEqualTo(1);
+  }
+
+  @Test
+  void testRefreshValuesPatchesCachedHints() {
+    var years = new AtomicReference<Set<String>>(Set.of("1979"));
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    try (var factory =
+        new RefreshingValueFactory(
+            (name, type) -> "value3".equals(name) ? years.get() : null, Duration.ofHours(1), scheduler)) {
+      var hg = new HintGenerator(new ObjectMapper(), factory, countingFinder);
+      var other = new HintGenerator(new ObjectMapper(), (name, type) -> Set.of("1979"), countingFinder);
+      var cache = new HintCache(10);
+      factory.addListener(changed -> cache.refreshValues(factory, changed));
+      var unrelated = cache.getJsonFor(other, TestClass.class).orElseThrow();
+
+      var before = cache.getHintsFor(hg, TestClass.class).orElseThrow();
+      assertThat(cache.getJsonFor(hg, TestClass.class).orElseThrow()).contains("\"value3\":[\"1979\"]");
+      int lookupsBefore = lookups.get();
+
+      assertThat(factory.refresh().join()).isEmpty();
+      years.set(Set.of("1980"));
+      assertThat(factory.refresh().join()).hasSize(1);
+
+      var after = cache.getHintsFor(hg, TestClass.class).orElseThrow();
+      assertThat(cache.getJsonFor(hg, TestClass.class).orElseThrow()).contains("\"value3\":[\"1980\"]");
+      assertThat(cache.getArtifactFor(hg, TestClass.class).orElseThrow().asString())
+          .contains("\"value3\":[\"1980\"]");
+      assertThat(cache.getJsonFor(other, TestClass.class).orElseThrow()).isSameAs(unrelated);
+      assertThat(lookups.get()).isEqualTo(lookupsBefore);
+      assertThat(before.toJson()).contains("\"value3\":[\"1979\"]");
+      assertThat(after.getAny().get("A")).isSameAs(before.getAny().get("A"));
+      assertThat(after.getAny().get("C")).isNotSameAs(before.getAny().get("C"));
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package hu.pilar.cjg;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.pilar.cjg.HintCompleter.Completion;
+import hu.pilar.cjg.HintCompleter.Completion.Kind;
+import hu.pilar.cjg.HintGeneratorTest.TestClass;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class HintCompleterTest {
+
+  private final HintCompleter completer =
+      new HintCompleter(
+          new HintGenerator(
+                  new ObjectMapper(),
+                  (name, type) -> "value3".equals(name) ? Set.of("1979") : null,
+                  new ClosedWorldSubclassFinder(TestClass.class))
+              .getHintsFor(TestClass.class)
+              .orElseThrow());
+
+  private Completion complete(String prefix) {
+    return completer.complete(prefix, prefix.length());
+  }
+
+  @Test
+  void testElements() {
+    assertThat(complete("").kind()).isEqualTo(Kind.NONE);
+    assertThat(complete("<?xml version=\"1.0\"?>\n<").candidates()).containsExactly("C");
+
+    var children = complete("<C boole=\"true\">\n  <A/>\n  <");
+    assertThat(children.kind()).isEqualTo(Kind.ELEMENT);
+    assertThat(children.element()).isEqualTo("C");
+    assertThat(children.candidates()).containsExactly("A", "D");
+    assertThat(complete("<C><D").candidates()).containsExactly("D");
+    assertThat(complete("<C><A></A><x").candidates()).isEmpty();
+  }
+
+  @Test
+  void testClosingTag() {
+    var closing = complete("<C><!-- <A> --><A value=\"ONE\"/></");
+    assertThat(closing.kind()).isEqualTo(Kind.CLOSING_TAG);
+    assertThat(closing.candidates()).containsExactly("C");
+    assertThat(complete("<C><A></").candidates()).containsExactly("A");
+  }
+
+  @Test
+  void testAttributes() {
+    var attributes = complete("<C ");
+    assertThat(attributes.kind()).isEqualTo(Kind.ATTRIBUTE);
+    assertThat(attributes.element()).isEqualTo("C");
+    assertThat(attributes.candidates()).containsExactly("boole", "boole2", "value3");
+    assertThat(complete("<C boole='true' bo").candidates()).containsExactly("boole2");
+  }
+
+  @Test
+  void testAttributeValues() {
+    var values = complete("<C><A nextValue=\"ONE\" value=\"T");
+    assertThat(values.kind()).isEqualTo(Kind.ATTRIBUTE_VALUE);
+    assertThat(values.attribute()).isEqualTo("value");
+    assertThat(values.prefix()).isEqualTo("T");
+    assertThat(values.candidates()).containsExactly("TWO", "THREE");
+    assertThat(complete("<C value3='").candidates()).containsExactly("1979");
+    assertThat(complete("<x:C xmlns:x=\"urn:x\"><x:A value=\"O").candidates())
+        .containsExactly("ONE");
+  }
+
+  @Test
+  void testOutsideTags() {
+    assertThat(complete("<C>some text").kind()).isEqualTo(Kind.NONE);
+    assertThat(complete("<C><A value=\"a>b\" ").kind()).isEqualTo(Kind.ATTRIBUTE);
+    assertThat(complete("<C><!-- ").kind()).isEqualTo(Kind.NONE);
+    assertThat(complete("<C><!-- <").kind()).isEqualTo(Kind.NONE);
+    assertThat(complete("<C><!-- <A").kind()).isEqualTo(Kind.NONE);
+    assertThat(complete("<C><![CDATA[ <").kind()).isEqualTo(Kind.NONE);
+    assertThat(complete("<C><?pi <A").kind()).isEqualTo(Kind.NONE);
+    assertThat(complete("<C><!-- <A --><").candidates()).containsExactly("A", "D");
+  }
+
+  @Test
+  void testSessionMatchesFullParse() {
+    for (var document :
+        List.of(
+            "<C boole=\"true\">\n  <A value=\"TWO\"/>\n  <D nextValue=\"ONE\">\n  </D>\n  <b ",
+            "<C><!-- <B/> <A> --><",
+            "<C><![CDATA[ <A> ]]><D><![CDATA[</D>]]></",
+            "<C><?pi <A> ?><D></D><")) {
+      var session = completer.newSession();
+      for (int i = 0; i <= document.length(); i++) {
+        assertThat(session.complete(document.substring(0, i)))
+            .as(document.substring(0, i))
+            .isEqualTo(complete(document.substring(0, i)));
+      }
+    }
+    var session = completer.newSession();
+    // an edit before the parsed part parses again from the start
+    assertThat(session.complete("<C><D>\n  <").element()).isEqualTo("D");
+    assertThat(session.complete("<C>\n  <").element()).isEqualTo("C");
+    assertThat(session.complete("<C>\n  <A>\n  </").candidates()).isEqualTo(List.of("A"));
+  }
+}
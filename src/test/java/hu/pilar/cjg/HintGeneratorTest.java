@@ -21,10 +21,28 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.xml.bind.annotation.*;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewMethod;
+import javassist.bytecode.AnnotationsAttribute;
+import javassist.bytecode.annotation.StringMemberValue;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class HintGeneratorTest {
 
@@ -97,6 +115,285 @@ class HintGeneratorTest {
         hint.toJson());
   }
 
+  @Test
+  void testBatch() {
+    HintGenerator hg = new HintGenerator(new ObjectMapper());
+
+    var hints =
+        hg.getHintsFor(List.of(TestClass.class, Object.class, DefaultNameTestClass.class, TestA.class));
+
+    assertThat(hints.keySet().stream().toList())
+        .isEqualTo(List.of(TestClass.class, DefaultNameTestClass.class, TestA.class));
+    for (var e : hints.entrySet()) {
+      assertEquals(hg.getHintsFor(e.getKey()).orElseThrow().toJson(), e.getValue().toJson());
+    }
+  }
+
+  @Test
+  void testHintsAreFrozen() {
+    HintGenerator hg = new HintGenerator(new ObjectMapper(), new ClosedWorldSubclassFinder(TestClass.class));
+
+    var hints = hg.getHintsFor(List.of(TestClass.class, TestA.class));
+    var c = hints.get(TestClass.class);
+    var a = hints.get(TestA.class);
+
+    assertTrue(c.isFrozen());
+    assertSame(c.getAny().get("A"), a.getAny().get("A"));
+    assertSame(c.getAny().get("A").getAttrs().get("value"), c.getAny().get("D").getAttrs().get("nextValue"));
+    assertTrue(c.getAny().get("C").getChildren().contains("D"));
+    assertThrows(UnsupportedOperationException.class, () -> c.getAny().get("C").getChildren().add("x"));
+    assertThrows(IllegalStateException.class, () -> c.addTag(new TagInfo("x")));
+    var patched = c.withValues(Map.of(new IAttributeValueFactory.Attribute("value3", String.class), Set.of("1")));
+    assertTrue(patched.isFrozen());
+    assertSame(c.getAny().get("A"), patched.getAny().get("A"));
+    assertThat(patched.toJson()).contains("\"value3\":[\"1\"]");
+  }
+
+  @Test
+  void testRenamedElementsShareTheirType() {
+    HintGenerator hg = new HintGenerator(new ObjectMapper(), new ClosedWorldSubclassFinder(Folder.class));
+
+    var tags = hg.getHintsFor(Folder.class).orElseThrow().getAny();
+
+    assertTrue(tags.get("item").isAlias());
+    assertSame(tags.get("item").getBody(), tags.get("sub").getBody());
+    assertSame(tags.get("item").getChildren(), tags.get("sub").getChildren());
+    assertEquals(Set.of("folder", "sub"), tags.get("item").getChildren());
+  }
+
+  @Test
+  void testNullValuesAreDropped() {
+    var values = new LinkedHashSet<String>();
+    values.add("1979");
+    values.add(null);
+    HintGenerator hg =
+        new HintGenerator(new ObjectMapper(), (name, type) -> "value3".equals(name) ? values : null);
+
+    var json = hg.getHintsFor(TestClass.class).orElseThrow().toJson();
+
+    assertThat(json).contains("\"value3\":[\"1979\"]");
+    assertEquals(List.of("1979"), List.copyOf(new Freezer().set(values)));
+    assertEquals(List.of("1979"), List.copyOf(new Freezer().sortedSet(values)));
+  }
+
+  @Test
+  void testRenamedChildWinsNameCollision() {
+    HintGenerator hg = new HintGenerator(new ObjectMapper(), new ClosedWorldSubclassFinder(Holder.class));
+
+    var tags = hg.getHintsFor(Holder.class).orElseThrow().getAny();
+
+    assertEquals(Set.of("clash"), tags.get("holder").getChildren());
+    assertEquals(Set.of("renamed"), tags.get("clash").getAttrs().keySet());
+  }
+
+  @Test
+  void testDeepGeneratedModel() throws Exception {
+    int depth = 10_000;
+    var root = generateChain(depth);
+    HintGenerator hg =
+        new HintGenerator(
+            new ObjectMapper(),
+            new ISubclassFinder() {
+              @Override
+              public <T> Set<Class<? extends T>> findClassesThatExtend(final Class<T> parent) {
+                return Set.of();
+              }
+            });
+    var hint = new AtomicReference<XmlHint>();
+    var failure = new AtomicReference<Throwable>();
+    // a small stack, a traversal recursing per class would overflow it
+    var thread =
+        new Thread(
+            null,
+            () -> {
+              try {
+                hint.set(hg.getHintsFor(root).orElseThrow());
+              } catch (Throwable t) {
+                failure.set(t);
+              }
+            },
+            "deep-model",
+            256 * 1024);
+    thread.start();
+    thread.join();
+
+    assertNull(failure.get());
+    assertEquals(depth, hint.get().getAny().size());
+    assertEquals(Set.of("e1"), hint.get().getAny().get("e0").getChildren());
+    assertEquals(Set.of("e0"), hint.get().getAny().get("e" + (depth - 1)).getChildren());
+  }
+
+  /**
+   * Generates the classes E0..En-1 with javassist, each referencing the next
+   * one and the last one the first, and returns E0
+   */
+  private static Class<?> generateChain(int length) throws Exception {
+    var pool = new ClassPool(true);
+    var packageName = "synthetic.chain" + length;
+    var classes = new CtClass[length];
+    for (int i = 0; i < length; i++) {
+      classes[i] = pool.makeClass(packageName + ".E" + i);
+    }
+    var bytecode = new HashMap<String, byte[]>();
+    for (int i = 0; i < length; i++) {
+      var c = classes[i];
+      var cp = c.getClassFile().getConstPool();
+      var root = new AnnotationsAttribute(cp, AnnotationsAttribute.visibleTag);
+      var rootElement = new javassist.bytecode.annotation.Annotation(XmlRootElement.class.getName(), cp);
+      rootElement.addMemberValue("name", new StringMemberValue("e" + i, cp));
+      root.addAnnotation(rootElement);
+      c.getClassFile().addAttribute(root);
+      var next = CtNewMethod.make("public " + classes[(i + 1) % length].getName() + " getNext() { return null; }", c);
+      var ref = new AnnotationsAttribute(cp, AnnotationsAttribute.visibleTag);
+      ref.addAnnotation(new javassist.bytecode.annotation.Annotation(XmlElementRef.class.getName(), cp));
+      next.getMethodInfo().addAttribute(ref);
+      c.addMethod(next);
+    }
+    for (CtClass c : classes) {
+      bytecode.put(c.getName(), c.toBytecode());
+    }
+    var loader =
+        new ClassLoader(HintGeneratorTest.class.getClassLoader()) {
+          @Override
+          protected Class<?> findClass(String name) throws ClassNotFoundException {
+            var bytes = bytecode.get(name);
+            if (bytes == null) {
+              throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+          }
+        };
+    return loader.loadClass(packageName + ".E0");
+  }
+
+  @Test
+  void testCyclesAndParallelDiscovery() {
+    HintGenerator hg = new HintGenerator(new ObjectMapper(), new ReflectionBasedSubclassFinder("hu.pilar.cjg"));
+    var expected =
+        "var tags = {"
+            + "\"!top\":[\"folder\"],"
+            + "\"!attrs\":{},"
+            + "\"folder\":{\"attrs\":{},\"children\":[\"item\"]},"
+            + "\"item\":{\"attrs\":{},\"children\":[\"folder\",\"sub\"]},"
+            + "\"sub\":{\"attrs\":{},\"children\":[\"folder\",\"sub\"]}"
+            + "};";
+
+    assertEquals(expected, hg.getHintsFor(Folder.class).orElseThrow().toJson());
+    hg.setForkJoinPool(ForkJoinPool.commonPool());
+    assertEquals(expected, hg.getHintsFor(Folder.class).orElseThrow().toJson());
+  }
+
+  @Test
+  void testBatchedValueFactory() {
+    var batches = new ArrayList<Collection<IAttributeValueFactory.Attribute>>();
+    var factory =
+        new IAttributeValueFactory() {
+          @Override
+          public Set<String> getValuesFor(String attributeName, Class<?> type) {
+            throw new AssertionError("only the batch method should be called");
+          }
+
+          @Override
+          public CompletableFuture<Map<Attribute, Set<String>>> getValuesForAsync(
+              Collection<Attribute> attributes) {
+            batches.add(attributes);
+            return CompletableFuture.supplyAsync(
+                () -> Map.of(new Attribute("value3", String.class), Set.of("1979")));
+          }
+        };
+    HintGenerator hg = new HintGenerator(new ObjectMapper(), factory, new ClosedWorldSubclassFinder(TestClass.class));
+
+    var json = hg.getHintsFor(TestClass.class).orElseThrow().toJson();
+
+    assertThat(json).contains("\"value3\":[\"1979\"]");
+    assertEquals(List.of(List.of(new IAttributeValueFactory.Attribute("value3", String.class))), batches);
+  }
+
+  @Test
+  void testListenerAndFlightRecorderEvents(@TempDir Path dir) throws Exception {
+    var described = new AtomicInteger();
+    var lookups = new AtomicInteger();
+    var generated = new AtomicInteger();
+    var serialized = new AtomicLong();
+    var listener =
+        new IGenerationListener() {
+          @Override
+          public void subclassLookup(Class<?> parent, int found, long nanos) {
+            lookups.incrementAndGet();
+          }
+
+          @Override
+          public void classDescribed(Class<?> type, long nanos) {
+            described.incrementAndGet();
+          }
+
+          @Override
+          public void generated(Collection<Class<?>> roots, int classes, int tags, long nanos) {
+            assertEquals(List.of(TestClass.class), roots);
+            assertEquals(3, classes);
+            assertEquals(4, tags);
+            generated.incrementAndGet();
+          }
+
+          @Override
+          public void serialized(XmlHint hint, long size, long nanos) {
+            serialized.addAndGet(size);
+          }
+        };
+    HintGenerator hg = new HintGenerator(new ObjectMapper(), new ClosedWorldSubclassFinder(TestClass.class));
+    hg.setListener(listener);
+
+    String json;
+    try (var recording = new Recording()) {
+      recording.enable("hu.pilar.cjg.Generation").withoutThreshold();
+      recording.enable("hu.pilar.cjg.Serialization").withoutThreshold();
+      recording.start();
+      json = hg.getHintsFor(TestClass.class).orElseThrow().toJson();
+      recording.stop();
+      var file = dir.resolve("hints.jfr");
+      recording.dump(file);
+      var events = RecordingFile.readAllEvents(file);
+      var generation =
+          events.stream().filter(e -> e.getEventType().getName().equals("hu.pilar.cjg.Generation")).toList();
+      assertEquals(1, generation.size());
+      assertEquals(4, generation.get(0).getInt("tags"));
+      assertTrue(
+          events.stream()
+              .anyMatch(
+                  e ->
+                      e.getEventType().getName().equals("hu.pilar.cjg.Serialization")
+                          && e.getLong("size") == json.length()));
+    }
+
+    assertEquals(1, generated.get());
+    assertEquals(3, described.get());
+    assertEquals(3, lookups.get());
+    assertEquals(json.length(), serialized.get());
+  }
+
+  @Test
+  void testMetadataIsShared() {
+    var metadata = ClassMetadata.get(TestClass.class);
+
+    assertSame(metadata, ClassMetadata.get(TestClass.class));
+    assertEquals("C", metadata.getTag());
+    assertEquals(
+        Set.of("boole", "boole2", "value3"),
+        Set.copyOf(metadata.getAttributes().stream().map(a -> a.name()).toList()));
+    assertEquals(
+        List.of("D"),
+        metadata.getChildren().stream()
+            .map(c -> c.elementName())
+            .filter(n -> n != null)
+            .toList());
+    assertNull(
+        metadata.getAttributes().stream()
+            .filter(a -> a.name().equals("value3"))
+            .findFirst()
+            .orElseThrow()
+            .values());
+  }
+
   public enum TestEnum {
     ONE,
     TWO,
@@ -157,6 +454,61 @@ class HintGeneratorTest {
   @XmlRootElement()
   static class NestedParameterized<T> {}
 
+  @XmlRootElement(name = "folder")
+  static class Folder {
+
+    @XmlElement(name = "item")
+    public List<Item> getItems() {
+      return List.of();
+    }
+  }
+
+  /** Only reachable through renamed elements, its copies must still be complete */
+  static class Item {
+
+    @XmlElementRef
+    public Folder getFolder() {
+      return null;
+    }
+
+    @XmlElement(name = "sub")
+    public List<Item> getSubItems() {
+      return List.of();
+    }
+  }
+
+  @XmlRootElement(name = "clash")
+  static class Clash {
+
+    @XmlAttribute
+    public String getRoot() {
+      return null;
+    }
+  }
+
+  static class Renamed {
+
+    @XmlAttribute
+    public String getRenamed() {
+      return null;
+    }
+  }
+
+  /** References a root element and a renamed child with the same name */
+  @XmlRootElement(name = "holder")
+  static class Holder {
+
+    @XmlElementRef
+    public Clash getClash() {
+      return null;
+    }
+
+    @XmlElement(name = "clash")
+    public Renamed getRenamed() {
+      return null;
+    }
+  }
+
   @XmlRootElement
   static class DefaultNameTestClass {
 
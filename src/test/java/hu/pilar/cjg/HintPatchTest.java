@@ -0,0 +1,98 @@
+package hu.pilar.cjg;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.pilar.cjg.HintGeneratorTest.DefaultNameTestClass;
+import hu.pilar.cjg.HintGeneratorTest.TestClass;
+import hu.pilar.cjg.IAttributeValueFactory.Attribute;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+class HintPatchTest {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final HintGenerator generator =
+      new HintGenerator(mapper, (name, type) -> "value3".equals(name) ? Set.of("1979") : null,
+          new ClosedWorldSubclassFinder(TestClass.class, DefaultNameTestClass.class));
+
+  @Test
+  void testVersionIsTheArtifactHash() {
+    var hint = generator.getHintsFor(TestClass.class).orElseThrow();
+
+    assertThat(hint.getVersion()).isEqualTo(HintArtifact.of(hint).getContentHash());
+    assertThat(hint.toJson()).doesNotContain(hint.getVersion());
+    assertThat(hint.diff(generator.getHintsFor(TestClass.class).orElseThrow()).isEmpty()).isTrue();
+  }
+
+  @Test
+  void testVersionIsNotReportedAsSerialization() {
+    var serialized = new AtomicInteger();
+    generator.setListener(
+        new IGenerationListener() {
+          @Override
+          public void serialized(XmlHint hint, long size, long nanos) {
+            serialized.incrementAndGet();
+          }
+        });
+    var hint = generator.getHintsFor(TestClass.class).orElseThrow();
+
+    assertThat(hint.getVersion()).isNotEmpty();
+    assertThat(serialized).hasValue(0);
+  }
+
+  @Test
+  void testChangedAttributeValues() throws Exception {
+    var before = generator.getHintsFor(TestClass.class).orElseThrow();
+    var after = before.withValues(Map.of(new Attribute("value3", String.class), Set.of("1980")));
+
+    var patch = after.diff(before);
+
+    assertThat(patch.getFromVersion()).isEqualTo(before.getVersion());
+    assertThat(patch.getToVersion()).isEqualTo(after.getVersion()).isNotEqualTo(before.getVersion());
+    assertThat(patch.toJson())
+        .isEqualTo(
+            "{\"from\":\"" + before.getVersion() + "\",\"to\":\"" + after.getVersion() + "\","
+                + "\"update\":{\"C\":{\"attrs\":{\"value3\":[\"1980\"]}}}}");
+    assertThat(apply(before, patch)).isEqualTo(mapper.readTree(after.toRawJson()));
+  }
+
+  @Test
+  void testAddedAndRemovedTags() throws Exception {
+    var before = generator.getHintsFor(TestClass.class).orElseThrow();
+    var after = generator.getHintsFor(DefaultNameTestClass.class).orElseThrow();
+
+    var patch = after.diff(before);
+
+    assertThat(patch.isEmpty()).isFalse();
+    assertThat(apply(before, patch)).isEqualTo(mapper.readTree(after.toRawJson()));
+  }
+
+  /** Runs {@link HintPatch#APPLIER} on the tags of the hints with node.js */
+  private JsonNode apply(XmlHint hint, HintPatch patch) throws Exception {
+    var script =
+        HintPatch.APPLIER
+            + "var input = JSON.parse(require('fs').readFileSync(0, 'utf8'));\n"
+            + "process.stdout.write(JSON.stringify(applyTagsPatch(input.tags, input.patch)));\n";
+    Process node;
+    try {
+      node = new ProcessBuilder("node", "-e", script).start();
+    } catch (IOException ex) {
+      Assumptions.abort("node.js is needed to run the patch applier");
+      return null;
+    }
+    try (var in = node.getOutputStream()) {
+      in.write(("{\"tags\":" + hint.toRawJson() + ",\"patch\":" + patch.toJson() + "}").getBytes(UTF_8));
+    }
+    var output = new String(node.getInputStream().readAllBytes(), UTF_8);
+    var error = new String(node.getErrorStream().readAllBytes(), UTF_8);
+    assertThat(node.waitFor()).as(error).isZero();
+    return mapper.readTree(output);
+  }
+}
@@ -0,0 +1,115 @@
+package hu.pilar.cjg;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.pilar.cjg.HintGeneratorTest.TestClass;
+import hu.pilar.cjg.IAttributeValueFactory.Attribute;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class HintProjectionsTest {
+
+  private final XmlHint base =
+      new HintGenerator(new ObjectMapper()).getHintsFor(TestClass.class).orElseThrow();
+
+  @Test
+  void testProjectionSharesUnchangedTags() {
+    assertThat(base.project(HintFilter.ALL)).isSameAs(base);
+
+    var projected = base.project(HintFilter.ofTags(tag -> !tag.equals("b")));
+
+    assertThat(projected.isFrozen()).isTrue();
+    assertThat(projected.getAny()).containsOnlyKeys("A", "C", "D");
+    assertThat(projected.getAny().get("C").getChildren()).containsExactly("A", "D");
+    assertThat(projected.getAny().get("A")).isSameAs(base.getAny().get("A"));
+    assertThat(projected.getAny().get("D")).isSameAs(base.getAny().get("D"));
+    // the base is not changed
+    assertThat(base.getAny().get("C").getChildren()).containsExactly("A", "D", "b");
+  }
+
+  @Test
+  void testFilteredAttributesAndValues() {
+    var projected =
+        base.project(
+            new HintFilter(
+                tag -> true,
+                (tag, attribute) -> !attribute.equals("nextValue"),
+                Map.of(new Attribute("value3", String.class), Set.of("1979"))));
+
+    assertThat(projected.getAny().get("A").getAttrs()).containsOnlyKeys("value");
+    // D is still an alias of A
+    assertThat(projected.getAny().get("D").getAttrs()).isSameAs(projected.getAny().get("A").getAttrs());
+    assertThat(projected.getAny().get("C").getAttrs().get("value3")).containsExactly("1979");
+    assertThat(base.getAny().get("A").getAttrs()).containsKey("nextValue");
+  }
+
+  @Test
+  void testFilteredGlobalAttributes() {
+    var hint = new XmlHint(new ObjectMapper(), new TagInfo("note"));
+    hint.getAttrs().put("lang", Set.of("en", "hu"));
+    hint.getAttrs().put("internal", Set.of("true"));
+
+    var projected =
+        hint.project(
+            new HintFilter(
+                tag -> true,
+                (tag, attribute) -> !(tag.equals(HintFilter.GLOBAL) && attribute.equals("internal")),
+                Map.of()));
+
+    assertThat(projected.getAttrs()).containsOnlyKeys("lang");
+    assertThat(projected.toJson()).contains("\"!attrs\":{\"lang\":");
+    assertThat(hint.getAttrs()).containsKey("internal");
+  }
+
+  @Test
+  void testUnreachableTagsAreDropped() {
+    var projected = base.project(HintFilter.ofTags(tag -> !tag.equals("C")));
+
+    assertThat(projected.getTopElements()).isEmpty();
+    assertThat(projected.getAny()).isEmpty();
+  }
+
+  @Test
+  void testVariantsAreCachedAndShared() {
+    var projections = new HintProjections(base);
+    projections.register("guest", HintFilter.ofTags(tag -> !tag.equals("b")));
+    projections.register("tenant", HintFilter.ofTags(tag -> !tag.startsWith("b")));
+    projections.register("admin", HintFilter.ALL);
+
+    var guest = projections.getArtifactFor("guest").orElseThrow();
+    assertThat(projections.getArtifactFor("guest")).containsSame(guest);
+    assertThat(projections.getArtifactFor("tenant")).containsSame(guest);
+    assertThat(projections.getHintsFor("admin")).containsSame(base);
+    assertThat(guest.asString()).doesNotContain("\"b\"");
+    assertThat(projections.getArtifactFor("unknown")).isEmpty();
+
+    projections.register("guest", HintFilter.ofTags(tag -> !tag.equals("D")));
+    assertThat(projections.getArtifactFor("guest").orElseThrow().asString())
+        .contains("\"b\"")
+        .doesNotContain("\"D\"");
+
+    assertThat(projections.refreshValues(Map.of(new Attribute("value3", String.class), Set.of("1980"))))
+        .isTrue();
+    assertThat(projections.getArtifactFor("tenant").orElseThrow().asString()).contains("\"1980\"");
+  }
+
+  @Test
+  void testReplacedVariantsAreReleased() {
+    var projections = new HintProjections(base);
+    var guest = HintFilter.ofTags(tag -> !tag.equals("b"));
+    projections.register("guest", guest);
+    projections.register("tenant", guest);
+    var shared = projections.getHintsFor("guest").orElseThrow();
+    assertThat(projections.getHintsFor("tenant")).containsSame(shared);
+
+    projections.register("guest", HintFilter.ALL);
+    projections.unregister("tenant");
+    projections.register("other", guest);
+
+    var projected = projections.getHintsFor("other").orElseThrow();
+    assertThat(projected).isNotSameAs(shared);
+    assertThat(projected.getVersion()).isEqualTo(shared.getVersion());
+  }
+}
@@ -0,0 +1,92 @@
+package hu.pilar.cjg;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.pilar.cjg.HintGeneratorTest.TestClass;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HintResourceWriterTest {
+
+  @TempDir Path output;
+
+  @Test
+  void testWritesResources() throws Exception {
+    var hg = new HintGenerator(new ObjectMapper());
+    var expected = hg.getHintsFor(TestClass.class).orElseThrow().toJson();
+
+    HintResourceWriter.main(new String[] {output.toString(), TestClass.class.getName()});
+
+    var directory = output.resolve(PrecomputedHints.LOCATION);
+    var js = directory.resolve(TestClass.class.getName() + ".js");
+    var json = directory.resolve(TestClass.class.getName() + ".json");
+    assertThat(Files.readString(js)).isEqualTo(expected);
+    assertThat("var tags = " + Files.readString(json) + ";").isEqualTo(expected);
+
+    try (var loader = new URLClassLoader(new URL[] {output.toUri().toURL()}, null)) {
+      var read = PrecomputedHints.read(loader, TestClass.class.getName() + ".js");
+      assertThat(read).isPresent();
+      assertThat(new String(read.orElseThrow(), UTF_8)).isEqualTo(expected);
+      assertThat(PrecomputedHints.read(loader, "missing.js")).isEmpty();
+    }
+  }
+
+  @Test
+  void testReportsSerialization() throws Exception {
+    var serialized = new AtomicLong();
+    var hg = new HintGenerator(new ObjectMapper());
+    hg.setListener(
+        new IGenerationListener() {
+          @Override
+          public void serialized(XmlHint hint, long size, long nanos) {
+            serialized.addAndGet(size);
+          }
+        });
+
+    assertThat(new HintResourceWriter(hg).write(output, TestClass.class)).isTrue();
+
+    var json = output.resolve(PrecomputedHints.LOCATION).resolve(TestClass.class.getName() + ".json");
+    assertThat(serialized.get()).isEqualTo(Files.readString(json).length());
+  }
+
+  @Test
+  void testSkipsNonJaxbRoot() throws Exception {
+    var writer =
+        new HintResourceWriter(
+            new HintGenerator(
+                new ObjectMapper(),
+                new ISubclassFinder() {
+                  @Override
+                  public <T> Set<Class<? extends T>> findClassesThatExtend(final Class<T> parent) {
+                    return Set.of();
+                  }
+                }));
+
+    assertThat(writer.write(output, Object.class)).isFalse();
+    assertThat(output.resolve(PrecomputedHints.LOCATION)).doesNotExist();
+  }
+
+  @Test
+  void testFailsOnMissingArguments() {
+    assertThatThrownBy(() -> HintResourceWriter.main(new String[] {output.toString()}))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageStartingWith("Usage:");
+    assertThatThrownBy(() -> HintResourceWriter.main(new String[] {"--value-factory"}))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> HintResourceWriter.main(new String[] {output.toString(), "hu.pilar.cjg.Missing"}))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("hu.pilar.cjg.Missing");
+    assertThatThrownBy(() -> HintResourceWriter.main(new String[] {output.toString(), String.class.getName()}))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining(String.class.getName());
+  }
+}
@@ -0,0 +1,181 @@
+package hu.pilar.cjg;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.pilar.cjg.HintGeneratorTest.TestA;
+import hu.pilar.cjg.HintGeneratorTest.TestClass;
+import hu.pilar.cjg.HintGeneratorTest.TestEnum;
+import hu.pilar.cjg.IAttributeValueFactory.Attribute;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HintStoreTest {
+
+  @TempDir Path directory;
+
+  private final AtomicInteger lookups = new AtomicInteger();
+
+  private HintGenerator generator() {
+    return new HintGenerator(
+        new ObjectMapper(),
+        (name, type) -> "value3".equals(name) ? Set.of("1979") : null,
+        new ISubclassFinder() {
+          @Override
+          public <T> Set<Class<? extends T>> findClassesThatExtend(final Class<T> parent) {
+            lookups.incrementAndGet();
+            return parent == HintGeneratorTest.TestAbstract.class ? Set.of(TestA.class.asSubclass(parent)) : Set.of();
+          }
+        });
+  }
+
+  @Test
+  void testRestoresWithoutGenerating() {
+    var generated = new HintStore(directory, "1").getHintsFor(generator(), TestClass.class).orElseThrow();
+    assertThat(directory.resolve(TestClass.class.getName() + HintStore.SUFFIX)).isRegularFile();
+    int lookupsAfterFirst = lookups.get();
+
+    // a new store, as after a restart
+    var restored = new HintStore(directory, "1").getHintsFor(generator(), TestClass.class).orElseThrow();
+
+    assertThat(lookups.get()).isEqualTo(lookupsAfterFirst);
+    assertThat(restored).isNotSameAs(generated);
+    assertThat(restored.toJson()).isEqualTo(generated.toJson());
+    assertThat(restored.getVersion()).isEqualTo(generated.getVersion());
+    assertThat(restored.getClassNames()).isEqualTo(generated.getClassNames());
+    assertThat(generated.getClassNames()).contains(TestEnum.class.getName());
+    assertThat(restored.getAny().get("D").getAttrs()).isSameAs(restored.getAny().get("A").getAttrs());
+    // the factory attributes survive, so values can still be refreshed
+    var values = Map.of(new Attribute("value3", String.class), Set.of("1980"));
+    assertThat(restored.withValues(values).toJson()).isEqualTo(generated.withValues(values).toJson());
+  }
+
+  @Test
+  void testNewVersionGeneratesAgain() {
+    new HintStore(directory, "1").getHintsFor(generator(), TestClass.class);
+    int lookupsAfterFirst = lookups.get();
+
+    new HintStore(directory, "2").getHintsFor(generator(), TestClass.class);
+    assertThat(lookups.get()).isGreaterThan(lookupsAfterFirst);
+
+    int lookupsAfterSecond = lookups.get();
+    new HintStore(directory, "2").getHintsFor(generator(), TestClass.class);
+    assertThat(lookups.get()).isEqualTo(lookupsAfterSecond);
+  }
+
+  @Test
+  void testChangedEnumGeneratesAgain() throws Exception {
+    var root = TestClass.class.getName();
+    new HintStore(directory, "1").getHintsFor(generator(), new ModelLoader("THREE").loadClass(root));
+    int lookupsAfterFirst = lookups.get();
+
+    new HintStore(directory, "1").getHintsFor(generator(), new ModelLoader("THREE").loadClass(root));
+    assertThat(lookups.get()).isEqualTo(lookupsAfterFirst);
+
+    // the enum is only an attribute type, no model class refers to it otherwise
+    var hint =
+        new HintStore(directory, "1")
+            .getHintsFor(generator(), new ModelLoader("THRE3").loadClass(root))
+            .orElseThrow();
+    assertThat(lookups.get()).isGreaterThan(lookupsAfterFirst);
+    assertThat(hint.toJson()).contains("\"THRE3\"").doesNotContain("\"THREE\"");
+  }
+
+  @Test
+  void testDamagedFileGeneratesAgain() throws Exception {
+    var store = new HintStore(directory, "1");
+    var generated = store.getHintsFor(generator(), TestClass.class).orElseThrow();
+    var file = directory.resolve(TestClass.class.getName() + HintStore.SUFFIX);
+    var bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+    int lookupsBefore = lookups.get();
+
+    var hint = store.getHintsFor(generator(), TestClass.class).orElseThrow();
+
+    assertThat(lookups.get()).isGreaterThan(lookupsBefore);
+    assertThat(hint.toJson()).isEqualTo(generated.toJson());
+    assertThat(Files.size(file)).isEqualTo(bytes.length);
+  }
+
+  @Test
+  void testCacheUsesStore() {
+    new HintStore(directory, "1").getHintsFor(generator(), TestClass.class);
+    int lookupsAfterFirst = lookups.get();
+    var cache = new HintCache(10);
+    cache.setStore(new HintStore(directory, "1"));
+
+    var artifact = cache.getArtifactFor(generator(), TestClass.class).orElseThrow();
+
+    assertThat(lookups.get()).isEqualTo(lookupsAfterFirst);
+    assertThat(artifact.asString()).isEqualTo(cache.getJsonFor(generator(), TestClass.class).orElseThrow());
+    assertThat(cache.getHintsFor(generator(), HintGeneratorTest.class)).isEmpty();
+  }
+
+  /**
+   * Defines the test model classes itself, like the class loader of a new
+   * deployment, with the last constant of {@link TestEnum} renamed
+   */
+  private static final class ModelLoader extends ClassLoader {
+
+    private final String three;
+
+    ModelLoader(String three) {
+      super(HintStoreTest.class.getClassLoader());
+      this.three = three;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!isModel(name)) {
+        return super.loadClass(name, resolve);
+      }
+      synchronized (getClassLoadingLock(name)) {
+        var loaded = findLoadedClass(name);
+        if (loaded == null) {
+          var bytes = bytecode(name.replace('.', '/') + ".class");
+          loaded = defineClass(name, bytes, 0, bytes.length);
+        }
+        return loaded;
+      }
+    }
+
+    @Override
+    public InputStream getResourceAsStream(String name) {
+      if (!name.endsWith(".class") || !isModel(name.substring(0, name.length() - 6).replace('/', '.'))) {
+        return super.getResourceAsStream(name);
+      }
+      return new ByteArrayInputStream(bytecode(name));
+    }
+
+    /** The test models and the test they are nested in, it is their nest host */
+    private static boolean isModel(String name) {
+      var test = HintGeneratorTest.class.getName();
+      return name.equals(test) || name.startsWith(test + "$");
+    }
+
+    private byte[] bytecode(String resource) {
+      try (var in = getParent().getResourceAsStream(resource)) {
+        var bytes = in.readAllBytes();
+        if (resource.equals(TestEnum.class.getName().replace('.', '/') + ".class")) {
+          // the name is stored once in the constant pool, a name of the same length keeps it valid
+          var from = new String(bytes, ISO_8859_1).replace("THREE", three);
+          bytes = from.getBytes(ISO_8859_1);
+        }
+        return bytes;
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+  }
+}
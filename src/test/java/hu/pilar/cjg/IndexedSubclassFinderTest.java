@@ -0,0 +1,60 @@
+package hu.pilar.cjg;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.pilar.cjg.ClosedWorldSubclassFinderTest.Circle;
+import hu.pilar.cjg.ClosedWorldSubclassFinderTest.RoundedSquare;
+import hu.pilar.cjg.ClosedWorldSubclassFinderTest.Shape;
+import hu.pilar.cjg.ClosedWorldSubclassFinderTest.Square;
+import hu.pilar.cjg.HintGeneratorTest.B;
+import hu.pilar.cjg.HintGeneratorTest.TestA;
+import hu.pilar.cjg.HintGeneratorTest.TestAbstract;
+import hu.pilar.cjg.HintGeneratorTest.TestClass;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class IndexedSubclassFinderTest {
+
+  @TempDir Path output;
+
+  @Test
+  void testIndexWrittenWithHintsAnswersLookups() throws Exception {
+    HintResourceWriter.main(new String[] {output.toString(), TestClass.class.getName()});
+
+    var parent = getClass().getClassLoader();
+    try (var loader = new URLClassLoader(new URL[] {output.toUri().toURL()}, parent)) {
+      var finder = new IndexedSubclassFinder(loader);
+
+      assertThat(finder.isIndexed(TestAbstract.class)).isTrue();
+      assertThat(finder.isIndexed(String.class)).isFalse();
+      assertThat(finder.findClassesThatExtend(TestAbstract.class))
+          .containsExactlyInAnyOrder(TestA.class, B.class);
+      assertThat(finder.findClassesThatExtend(TestA.class)).isEmpty();
+      assertThat(finder.findClassesThatExtend(String.class)).isEmpty();
+
+      var expected = new HintGenerator(new ObjectMapper()).getHintsFor(TestClass.class);
+      var indexed = new HintGenerator(new ObjectMapper(), finder).getHintsFor(TestClass.class);
+      assertThat(indexed.orElseThrow().toJson()).isEqualTo(expected.orElseThrow().toJson());
+    }
+  }
+
+  @Test
+  void testFallbackForUnindexedParents() throws Exception {
+    HintResourceWriter.main(new String[] {output.toString(), TestClass.class.getName()});
+
+    var parent = getClass().getClassLoader();
+    try (var loader = new URLClassLoader(new URL[] {output.toUri().toURL()}, parent)) {
+      var finder = new IndexedSubclassFinder(loader, new ClosedWorldSubclassFinder(Shape.class));
+
+      assertThat(finder.isIndexed(Shape.class)).isFalse();
+      assertThat(finder.findClassesThatExtend(Shape.class))
+          .containsExactlyInAnyOrder(Circle.class, Square.class, RoundedSquare.class);
+      assertThat(finder.findClassesThatExtend(TestAbstract.class))
+          .containsExactlyInAnyOrder(TestA.class, B.class);
+    }
+  }
+}
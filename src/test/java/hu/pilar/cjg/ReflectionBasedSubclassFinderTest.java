@@ -0,0 +1,112 @@
+package hu.pilar.cjg;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.pilar.cjg.HintGeneratorTest.B;
+import hu.pilar.cjg.HintGeneratorTest.TestA;
+import hu.pilar.cjg.HintGeneratorTest.TestAbstract;
+import hu.pilar.cjg.HintGeneratorTest.TestClass;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.Test;
+import org.reflections.Reflections;
+
+class ReflectionBasedSubclassFinderTest {
+
+  @Test
+  void testPackagePrefixes() {
+    assertThat(
+            ReflectionBasedSubclassFinder.packagePrefixesOf(
+                List.of(TestClass.class, Reflections.class, Test.class, String.class)))
+        .containsExactly("hu.pilar.cjg", "java.lang", "org.junit.jupiter.api", "org.reflections");
+    assertThat(
+            ReflectionBasedSubclassFinder.packagePrefixesOf(
+                List.of(Reflections.class, org.reflections.util.FilterBuilder.class)))
+        .containsExactly("org.reflections");
+  }
+
+  @Test
+  void testScopedScan() {
+    var finder = new ReflectionBasedSubclassFinder(TestClass.class);
+
+    assertThat(finder.findClassesThatExtend(TestAbstract.class))
+        .containsExactlyInAnyOrder(TestA.class, B.class);
+    assertThat(finder.findClassesThatExtend(Reflections.class)).isEmpty();
+    assertThat(finder.getScannedUrlCount()).isPositive();
+    assertThat(finder.getScannedClassCount()).isPositive();
+  }
+
+  @Test
+  void testExplicitPackages() {
+    var finder = new ReflectionBasedSubclassFinder("hu.pilar.cjg");
+
+    assertThat(finder.findClassesThatExtend(TestAbstract.class))
+        .containsExactlyInAnyOrder(TestA.class, B.class);
+  }
+
+  @Test
+  void testBackgroundScan() {
+    var generator = new HintGenerator(new ObjectMapper());
+    var ready = generator.ready();
+
+    // generating waits for the scan
+    var hint = generator.getHintsFor(TestClass.class).orElseThrow();
+
+    assertThat(ready).succeedsWithin(Duration.ofSeconds(30));
+    assertThat(hint.toJson()).contains("\"b\":{");
+    var finder = new ReflectionBasedSubclassFinder();
+    assertThat(finder.findClassesThatExtend(TestAbstract.class))
+        .containsExactlyInAnyOrder(TestA.class, B.class);
+    assertThat(finder.ready()).isDone();
+  }
+
+  @Test
+  void testConstructorDoesNotWaitForTheScan() throws Exception {
+    var release = new CountDownLatch(1);
+    var finder =
+        new ReflectionBasedSubclassFinder(
+            () -> {
+              try {
+                release.await();
+              } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+              }
+              return new Reflections("hu.pilar.cjg");
+            });
+
+    var lookup = CompletableFuture.supplyAsync(() -> finder.findClassesThatExtend(TestAbstract.class));
+    Thread.sleep(100);
+    assertThat(finder.ready()).isNotDone();
+    assertThat(lookup).isNotDone();
+
+    release.countDown();
+    assertThat(lookup)
+        .succeedsWithin(Duration.ofSeconds(30))
+        .satisfies(found -> assertThat(found).containsExactlyInAnyOrder(TestA.class, B.class));
+    assertThat(finder.ready()).succeedsWithin(Duration.ofSeconds(30));
+  }
+
+  @Test
+  void testFailedScan() {
+    var failure = new IllegalStateException("scan failed");
+    var finder =
+        new ReflectionBasedSubclassFinder(
+            () -> {
+              throw failure;
+            });
+
+    assertThat(finder.ready())
+        .failsWithin(Duration.ofSeconds(30))
+        .withThrowableOfType(ExecutionException.class)
+        .havingCause()
+        .isSameAs(failure);
+    assertThatThrownBy(() -> finder.findClassesThatExtend(TestAbstract.class)).isSameAs(failure);
+    assertThatThrownBy(() -> new HintGenerator(new ObjectMapper(), finder).getHintsFor(TestClass.class))
+        .isSameAs(failure);
+  }
+}
@@ -0,0 +1,114 @@
+package hu.pilar.cjg;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.pilar.cjg.HintGeneratorTest.TestClass;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ShardedHintsTest {
+
+  private static final TypeReference<Map<String, Object>> TAGS = new TypeReference<>() {};
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final XmlHint hint = new HintGenerator(mapper).getHintsFor(TestClass.class).orElseThrow();
+
+  @Test
+  void testChunksCoverEveryTag() throws Exception {
+    var sharded = ShardedHints.of(hint, 2);
+
+    assertThat(sharded.getChunkCount()).isEqualTo(2);
+    var index = sharded.getIndexJs("/hints/");
+    assertThat(index)
+        .startsWith(
+            "var tags = {\"!top\":[\"C\"],\"!attrs\":{},"
+                + "\"A\":{\"attrs\":{\"nextValue\":[\"ONE\",\"TWO\",\"THREE\"],\"value\":[\"ONE\",\"TWO\",\"THREE\"]},\"children\":[]},"
+                + "\"C\":{")
+        .contains("var tagsLoader = (function (chunkOf, url) {")
+        .endsWith("})({\"D\":1,\"b\":1}, \"/hints/\");\n");
+
+    var all = new TreeMap<String, Object>();
+    all.putAll(mapper.readValue(hint.toRawJson(), TAGS));
+    all.remove("!top");
+    all.remove("!attrs");
+    var merged = new TreeMap<String, Object>();
+    var first = index.substring("var tags = ".length(), index.indexOf(";\n"));
+    merged.putAll(mapper.readValue(first, TAGS));
+    merged.remove("!top");
+    merged.remove("!attrs");
+    merged.putAll(mapper.readValue(sharded.getChunkJson(1), TAGS));
+    assertThat(merged).isEqualTo(all);
+  }
+
+  @Test
+  void testLoaderFetchesEveryChunkOnce() throws Exception {
+    var sharded = ShardedHints.of(hint, 1);
+    var chunks = mapper.createObjectNode();
+    for (int i = 1; i < sharded.getChunkCount(); i++) {
+      chunks.set("/hints/" + ShardedHints.getChunkName(i), mapper.readTree(sharded.getChunkJson(i)));
+    }
+
+    var result = load(sharded.getIndexJs("/hints/"), chunks, "C", "A", "C");
+
+    assertThat(result.get("tags")).isEqualTo(mapper.readTree(hint.toRawJson()));
+    assertThat(result.get("fetched")).hasSize(sharded.getChunkCount() - 1);
+  }
+
+  @Test
+  void testWriteTo(@TempDir Path dir) throws Exception {
+    ShardedHints.of(hint, 1).writeTo(dir, "/hints/");
+
+    assertThat(Files.readString(dir.resolve(ShardedHints.INDEX))).startsWith("var tags = ");
+    for (int i = 1; i < 4; i++) {
+      assertThat(dir.resolve(ShardedHints.getChunkName(i))).exists();
+    }
+    assertThat(dir.resolve(ShardedHints.getChunkName(4))).doesNotExist();
+  }
+
+  /**
+   * Runs the index script with node.js, serving the chunks from a fake
+   * fetch, and loads the given tags with their children
+   */
+  private JsonNode load(String indexJs, JsonNode chunks, String... tags) throws Exception {
+    var script =
+        "var input = JSON.parse(require('fs').readFileSync(0, 'utf8'));\n"
+            + "var fetched = [];\n"
+            + "fetch = function (url) {\n"
+            + "  fetched.push(url);\n"
+            + "  return Promise.resolve({json: function () { return Promise.resolve(input.chunks[url]); }});\n"
+            + "};\n"
+            + indexJs
+            + "input.tags.reduce(function (p, tag) {\n"
+            + "  return p.then(function () { return tagsLoader.load(tag); });\n"
+            + "}, Promise.resolve()).then(function () {\n"
+            + "  process.stdout.write(JSON.stringify({tags: tags, fetched: fetched}));\n"
+            + "});\n";
+    Process node;
+    try {
+      node = new ProcessBuilder("node", "-e", script).start();
+    } catch (IOException ex) {
+      Assumptions.abort("node.js is needed to run the chunk loader");
+      return null;
+    }
+    var input = mapper.createObjectNode();
+    input.set("chunks", chunks);
+    input.set("tags", mapper.valueToTree(tags));
+    try (var in = node.getOutputStream()) {
+      in.write(mapper.writeValueAsBytes(input));
+    }
+    var output = new String(node.getInputStream().readAllBytes(), UTF_8);
+    var error = new String(node.getErrorStream().readAllBytes(), UTF_8);
+    assertThat(node.waitFor()).as(error).isZero();
+    return mapper.readTree(output);
+  }
+}
@@ -0,0 +1,114 @@
+package hu.pilar.cjg;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.pilar.cjg.HintGeneratorTest.TestClass;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+class XmlHintTest {
+
+  private final XmlHint hint =
+      new HintGenerator(new ObjectMapper()).getHintsFor(TestClass.class).orElseThrow();
+
+  @Test
+  void testWriteToStreams() throws Exception {
+    var expected = hint.toJson();
+    assertThat(expected).startsWith("var tags = {\"!top\":[\"C\"]").endsWith("};");
+
+    var bytes = new ByteArrayOutputStream();
+    hint.writeTo(bytes);
+    assertThat(bytes.toString(UTF_8)).isEqualTo(expected);
+
+    var writer = new StringWriter();
+    hint.writeTo(writer);
+    writer.write("// still open");
+    assertThat(writer.toString()).isEqualTo(expected + "// still open");
+
+    var channelBytes = new ByteArrayOutputStream();
+    try (var channel = Channels.newChannel(channelBytes)) {
+      hint.writeTo(channel);
+      assertThat(channel.isOpen()).isTrue();
+    }
+    assertThat(channelBytes.toString(UTF_8)).isEqualTo(expected);
+  }
+
+  @Test
+  void testSharedValues() {
+    assertThat(hint.toJsonWithSharedValues())
+        .isEqualTo(
+            "var tags = (function () {\n"
+                + "var v0 = [\"ONE\",\"TWO\",\"THREE\"];\n"
+                + "var v1 = [\"true\",\"false\"];\n"
+                + "return {"
+                + "\"!top\":[\"C\"],"
+                + "\"!attrs\":{},"
+                + "\"A\":{\"attrs\":{\"nextValue\":v0,\"value\":v0},\"children\":[]},"
+                + "\"C\":{\"attrs\":{\"boole\":v1,\"boole2\":v1,\"value3\":[]},\"children\":[\"A\",\"D\",\"b\"]},"
+                + "\"D\":{\"attrs\":{\"nextValue\":v0,\"value\":v0},\"children\":[]},"
+                + "\"b\":{\"attrs\":{\"nextValue\":v0,\"value\":v0},\"children\":[]}"
+                + "};\n})();");
+  }
+
+  @Test
+  void testSharedTags() {
+    assertThat(hint.getAny().get("D").getAttrs()).isSameAs(hint.getAny().get("A").getAttrs());
+    assertThat(hint.toJsonWithSharedTags())
+        .isEqualTo(
+            "var tags = (function () {\n"
+                + "var v0 = [\"ONE\",\"TWO\",\"THREE\"];\n"
+                + "var v1 = [\"true\",\"false\"];\n"
+                + "var t0 = {\"attrs\":{\"nextValue\":v0,\"value\":v0},\"children\":[]};\n"
+                + "return {"
+                + "\"!top\":[\"C\"],"
+                + "\"!attrs\":{},"
+                + "\"A\":t0,"
+                + "\"C\":{\"attrs\":{\"boole\":v1,\"boole2\":v1,\"value3\":[]},\"children\":[\"A\",\"D\",\"b\"]},"
+                + "\"D\":t0,"
+                + "\"b\":{\"attrs\":{\"nextValue\":v0,\"value\":v0},\"children\":[]}"
+                + "};\n})();");
+  }
+
+  @Test
+  void testValueSetsAreInterned() {
+    var attrs = hint.getAny();
+    assertThat(attrs.get("A").getAttrs().get("value"))
+        .isSameAs(attrs.get("b").getAttrs().get("nextValue"))
+        .isSameAs(attrs.get("D").getAttrs().get("value"));
+    assertThat(attrs.get("C").getAttrs().get("boole"))
+        .isSameAs(attrs.get("C").getAttrs().get("boole2"));
+  }
+
+  @Test
+  void testCompactEncodingDecodesToTheSameTags() throws Exception {
+    var js = hint.toCompactJs();
+    assertThat(js).startsWith("var tags = (function (s, v, top, attrs, t) {").endsWith(");");
+    var encoded = js.substring(js.indexOf("})(") + 3, js.length() - 2);
+    assertThat(encoded.length()).isLessThan(hint.toRawJson().length() / 2);
+
+    assertThat(decode(js)).isEqualTo(new ObjectMapper().readTree(hint.toRawJson()));
+  }
+
+  /** Runs the compact javascript with node.js and returns the decoded tags */
+  private static JsonNode decode(String js) throws Exception {
+    Process node;
+    try {
+      node = new ProcessBuilder("node", "-e", js + "\nprocess.stdout.write(JSON.stringify(tags));\n").start();
+    } catch (IOException ex) {
+      Assumptions.abort("node.js is needed to run the compact decoder");
+      return null;
+    }
+    node.getOutputStream().close();
+    var output = new String(node.getInputStream().readAllBytes(), UTF_8);
+    var error = new String(node.getErrorStream().readAllBytes(), UTF_8);
+    assertThat(node.waitFor()).as(error).isZero();
+    return new ObjectMapper().readTree(output);
+  }
+}
@@ -0,0 +1,160 @@
+package hu.pilar.cjg;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.pilar.cjg.HintGeneratorTest.Folder;
+import hu.pilar.cjg.HintGeneratorTest.TestClass;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class XsdHintReaderTest {
+
+  private static final IAttributeValueFactory VALUES =
+      (name, type) -> "value3".equals(name) && type == String.class ? Set.of("1979") : null;
+
+  private static Path schema(String name) throws Exception {
+    return Path.of(XsdHintReaderTest.class.getResource("/xsd/" + name).toURI());
+  }
+
+  @Test
+  void testSameHintsAsTheJaxbModel() throws Exception {
+    var reader = new XsdHintReader(new ObjectMapper(), VALUES);
+    reader.read(schema("test-class.xsd"));
+
+    var expected = new HintGenerator(new ObjectMapper(), VALUES).getHintsFor(TestClass.class).orElseThrow();
+    var hint = reader.getHintsFor("C").orElseThrow();
+
+    assertThat(reader.getElementNames()).containsExactly("A", "C", "b");
+    assertThat(hint.isFrozen()).isTrue();
+    assertThat(hint.toJson()).isEqualTo(expected.toJson());
+    assertThat(hint.toJsonWithSharedTags()).isEqualTo(expected.toJsonWithSharedTags());
+    assertThat(hint.getAny().get("D").getBody()).isSameAs(hint.getAny().get("A"));
+    assertThat(reader.getHintsFor("testAbstract")).isEmpty();
+    assertThat(reader.getHintsFor("missing")).isEmpty();
+  }
+
+  @Test
+  void testRecursiveTypes() throws Exception {
+    var xsd =
+        """
+        <xs:schema xmlns:xs="http://www.w3.org/2001/XMLSchema">
+          <xs:element name="folder">
+            <xs:complexType>
+              <xs:sequence>
+                <xs:element name="item" type="item" maxOccurs="unbounded"/>
+              </xs:sequence>
+            </xs:complexType>
+          </xs:element>
+          <xs:complexType name="item">
+            <xs:choice>
+              <xs:element ref="folder"/>
+              <xs:element name="sub" type="item"/>
+            </xs:choice>
+          </xs:complexType>
+        </xs:schema>
+        """;
+    var reader = new XsdHintReader(new ObjectMapper());
+    reader.read(new ByteArrayInputStream(xsd.getBytes(UTF_8)));
+
+    var hint = reader.getHintsFor("folder").orElseThrow();
+    var expected =
+        new HintGenerator(new ObjectMapper(), new ClosedWorldSubclassFinder(Folder.class))
+            .getHintsFor(Folder.class)
+            .orElseThrow();
+
+    assertThat(hint.toJson()).isEqualTo(expected.toJson());
+    assertThat(hint.getAny().get("sub").getBody()).isSameAs(hint.getAny().get("item").getBody());
+  }
+
+  @Test
+  void testLongTypeChains() throws Exception {
+    var xsd = new StringBuilder("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">");
+    xsd.append("<xs:element name=\"root\" type=\"t0\"/>");
+    int count = 20_000;
+    for (int i = 0; i < count; i++) {
+      xsd.append("<xs:complexType name=\"t").append(i).append("\"><xs:sequence>");
+      xsd.append("<xs:element name=\"e").append(i).append("\" type=\"t").append(i + 1).append("\"/>");
+      xsd.append("</xs:sequence><xs:attribute name=\"on\" type=\"xs:boolean\"/></xs:complexType>");
+    }
+    xsd.append("</xs:schema>");
+    var reader = new XsdHintReader(new ObjectMapper());
+    reader.read(new ByteArrayInputStream(xsd.toString().getBytes(UTF_8)));
+
+    var hint = reader.getHintsFor("root").orElseThrow();
+
+    assertThat(hint.getAny()).hasSize(count + 1);
+    assertThat(hint.getAny().get("e" + (count - 2)).getChildren()).containsExactly("e" + (count - 1));
+    assertThat(hint.getAny().get("e1").getAttrs().get("on")).containsExactly("true", "false");
+  }
+
+  @Test
+  void testLongDerivationChains() throws Exception {
+    var xsd = new StringBuilder("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">");
+    xsd.append("<xs:element name=\"root\" type=\"t0\"/>");
+    int count = 20_000;
+    for (int i = 0; i < count; i++) {
+      xsd.append("<xs:complexType name=\"t").append(i).append("\">");
+      if (i + 1 < count) {
+        xsd.append("<xs:complexContent><xs:extension base=\"t").append(i + 1).append("\">");
+      }
+      xsd.append("<xs:attribute name=\"a").append(i).append("\" type=\"xs:boolean\"/>");
+      if (i + 1 < count) {
+        xsd.append("</xs:extension></xs:complexContent>");
+      }
+      xsd.append("</xs:complexType>");
+    }
+    xsd.append("</xs:schema>");
+    var reader = new XsdHintReader(new ObjectMapper());
+    reader.read(new ByteArrayInputStream(xsd.toString().getBytes(UTF_8)));
+
+    var attrs = reader.getHintsFor("root").orElseThrow().getAny().get("root").getAttrs();
+
+    assertThat(attrs).hasSize(count).containsKeys("a0", "a" + (count - 1));
+  }
+
+  @Test
+  void testRestrictionsAndAttributeTypes() throws Exception {
+    var xsd =
+        """
+        <xs:schema xmlns:xs="http://www.w3.org/2001/XMLSchema">
+          <xs:element name="base" type="base"/>
+          <xs:element name="restricted" type="restricted"/>
+          <xs:complexType name="base">
+            <xs:attribute name="code" type="xs:string"/>
+            <xs:attribute name="count" type="xs:int"/>
+            <xs:attribute name="size" type="xs:unsignedShort" use="required"/>
+          </xs:complexType>
+          <xs:complexType name="restricted">
+            <xs:complexContent>
+              <xs:restriction base="base">
+                <xs:attribute name="code" use="prohibited"/>
+              </xs:restriction>
+            </xs:complexContent>
+          </xs:complexType>
+        </xs:schema>
+        """;
+    var types = new HashMap<String, Class<?>>();
+    var reader =
+        new XsdHintReader(
+            new ObjectMapper(),
+            (name, type) -> {
+              types.put(name, type);
+              return Set.of("1");
+            });
+    reader.read(new ByteArrayInputStream(xsd.getBytes(UTF_8)));
+
+    assertThat(reader.getHintsFor("base").orElseThrow().getAny().get("base").getAttrs())
+        .containsOnlyKeys("code", "count", "size");
+    assertThat(reader.getHintsFor("restricted").orElseThrow().getAny().get("restricted").getAttrs())
+        .containsOnlyKeys("count", "size");
+    assertThat(types)
+        .containsEntry("code", String.class)
+        .containsEntry("count", Integer.class)
+        .containsEntry("size", int.class);
+  }
+}